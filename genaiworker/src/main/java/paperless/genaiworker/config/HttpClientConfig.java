@@ -1,15 +1,31 @@
 package paperless.genaiworker.config;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 @Configuration
 public class HttpClientConfig {
 
+    // One client for all Gemini calls: connections (and TLS sessions) are pooled, and over HTTP/2
+    // concurrent summaries share a single multiplexed connection.
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public HttpClient geminiHttpClient(Environment environment,
+                                       @Value("${gemini.http.version:HTTP_2}") HttpClient.Version version,
+                                       @Value("${gemini.connectTimeoutMs:5000}") long connectTimeoutMs) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // the client's internal async work (connect, TLS, body handling) runs on virtual threads too
+            builder.executor(new VirtualThreadTaskExecutor("gemini-http-"));
+        }
         return builder.build();
     }
-}
\ No newline at end of file
+}
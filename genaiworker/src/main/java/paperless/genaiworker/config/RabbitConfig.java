@@ -5,8 +5,11 @@ import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitConfig {
@@ -17,6 +20,30 @@ public class RabbitConfig {
         return new Queue(name, true);
     }
 
+    // jobs that hit a rate limit or a Gemini outage wait here for genai.retry.delayMs, then go back to the queue
+    @Bean
+    public Queue genAiRetryQueue(
+            @org.springframework.beans.factory.annotation.Value("${genai.queue.name}") String name,
+            @org.springframework.beans.factory.annotation.Value("${genai.retry.delayMs:30000}") int delayMs) {
+        return new Queue(name + "_RETRY", true, false, false, java.util.Map.of(
+                "x-message-ttl", delayMs,
+                "x-dead-letter-exchange", "",
+                "x-dead-letter-routing-key", name
+        ));
+    }
+
+    @Bean
+    public Queue genAiDlq(@org.springframework.beans.factory.annotation.Value("${genai.queue.name}") String name) {
+        return new Queue(name + "_DLQ", true);
+    }
+
+    // consumed by the REST service; durable, so summaries wait there while it is down
+    @Bean
+    public Queue genAiResultQueue(
+            @org.springframework.beans.factory.annotation.Value("${genai.result.queue.name}") String name) {
+        return new Queue(name, true);
+    }
+
     @Bean
     public ObjectMapper rabbitObjectMapper() {
         return new ObjectMapper();
@@ -30,12 +57,19 @@ public class RabbitConfig {
     @Bean
     public SimpleRabbitListenerContainerFactory genAiListenerFactory(
             ConnectionFactory cf,
-            Jackson2JsonMessageConverter converter
+            Jackson2JsonMessageConverter converter,
+            Environment environment,
+            @org.springframework.beans.factory.annotation.Value("${genai.listener.concurrency:1}") int concurrency
     ) {
         SimpleRabbitListenerContainerFactory f = new SimpleRabbitListenerContainerFactory();
         f.setConnectionFactory(cf);
         f.setMessageConverter(converter);
         f.setDefaultRequeueRejected(false);
+        f.setConcurrentConsumers(Math.max(1, concurrency));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // a consumer mostly waits on Gemini; on a virtual thread that wait costs no platform thread
+            f.setTaskExecutor(new VirtualThreadTaskExecutor("genai-listener-"));
+        }
         return f;
     }
 }
\ No newline at end of file
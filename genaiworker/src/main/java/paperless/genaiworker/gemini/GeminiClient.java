@@ -1,5 +1,9 @@
 package paperless.genaiworker.gemini;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -7,83 +11,190 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 @Component
 public class GeminiClient {
 
-    @Value("${google.api.key}")
-    private String apiKey;
+    private static final String COMBINE_HEADER = "\nThe document is given as summaries of its consecutive parts.\n";
+
+    // generation settings are part of the prompt version: changing them changes the summaries
+    private static final double TEMPERATURE = 0.2;
+    private static final int TOP_K = 40;
+    private static final double TOP_P = 0.8;
+    private static final int FINAL_MAX_TOKENS = 200;
+    private static final int CHUNK_MAX_TOKENS = 400;
+
+    // same rough estimate the chunker uses; only feeds the tokens-per-minute bucket
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final HttpClient client;
+    private final GeminiRateLimiter limiter;
+    private final URI endpoint;
+    private final String promptVersion;
+    private final String apiKey;
+    private final Duration requestTimeout;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String FINAL_PROMPT = """
+            Summarize the following document in **clear, concise English**.
+
+            Requirements:
+            - Maximum length: **3 sentences**
+            - Maximum **350 characters**
+            - No bullet points, no lists, no markdown
+            - No intro phrases (e.g., “Here is the summary:”)
+            - Output only the summary text.
+            """;
+
+    private static final String CHUNK_PROMPT = """
+            The following text is part %d of a longer document.
+            Summarize it in at most 5 sentences of plain English, keeping names, dates, amounts and other facts
+            that a summary of the whole document may need. No lists, no markdown, no intro phrases.
+
+            Text:
+            """;
+
+    public GeminiClient(HttpClient geminiHttpClient,
+                        GeminiRateLimiter limiter,
+                        @Value("${gemini.baseUrl:https://generativelanguage.googleapis.com/v1beta}") String baseUrl,
+                        @Value("${gemini.model:gemini-2.0-flash-lite}") String model,
+                        @Value("${google.api.key}") String apiKey,
+                        @Value("${gemini.requestTimeoutMs:60000}") long requestTimeoutMs) {
+        this.client = geminiHttpClient;
+        this.limiter = limiter;
+        this.endpoint = URI.create(baseUrl.replaceAll("/+$", "") + "/models/" + model + ":generateContent");
+        this.apiKey = apiKey;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.promptVersion = promptVersion(model);
+    }
 
-    private static final String URL =
-            "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash-lite:generateContent";
+    /**
+     * Short hash of everything that shapes a summary: prompt templates, generation settings and model.
+     * Editing a template yields a new version, so cached summaries of the old prompt are no longer used.
+     */
+    public String promptVersion() { return promptVersion; }
+
+    private static String promptVersion(String model) {
+        String material = String.join("\u0000", FINAL_PROMPT, CHUNK_PROMPT, COMBINE_HEADER, model,
+                TEMPERATURE + "/" + TOP_K + "/" + TOP_P + "/" + FINAL_MAX_TOKENS + "/" + CHUNK_MAX_TOKENS);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
     public String summarize(String text) throws Exception {
+        try {
+            return summarizeAsync(text).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
 
-        String prompt = """
-                Summarize the following document in **clear, concise English**.
-
-                Requirements:
-                - Maximum length: **3 sentences**
-                - Maximum **350 characters**
-                - No bullet points, no lists, no markdown
-                - No intro phrases (e.g., “Here is the summary:”)
-                - Output only the summary text.
-
-                Document:
-                """ + text;
-
-        String jsonBody = """
-                {
-                    "contents": [
-                        {
-                            "parts": [
-                                { "text": "%s" }
-                            ]
-                        }
-                    ],
-                    "generationConfig": {
-                        "temperature": 0.2,
-                        "topK": 40,
-                        "topP": 0.8,
-                        "maxOutputTokens": 200
-                    }
-                }
-                """.formatted(escape(prompt));
-
-        HttpClient client = HttpClient.newHttpClient();
+    // Non-blocking variant; the caller's thread is free while the request is in flight, but may wait for
+    // GeminiRateLimiter before it is sent. Failures complete the future with a GeminiException.
+    public CompletableFuture<String> summarizeAsync(String text) {
+        return generateAsync(FINAL_PROMPT + "\nDocument:\n" + text, FINAL_MAX_TOKENS);
+    }
+
+    // Map step for long documents: a summary of one part, detailed enough to be combined later.
+    public CompletableFuture<String> summarizeChunkAsync(String chunk, int part) {
+        return generateAsync(CHUNK_PROMPT.formatted(part) + chunk, CHUNK_MAX_TOKENS);
+    }
+
+    // Reduce step: one final summary from the summaries of all parts, in document order.
+    public CompletableFuture<String> combineAsync(List<String> partials) {
+        StringBuilder sb = new StringBuilder(FINAL_PROMPT).append(COMBINE_HEADER);
+        for (int i = 0; i < partials.size(); i++) {
+            sb.append("\nPart ").append(i + 1).append(":\n").append(partials.get(i)).append('\n');
+        }
+        return generateAsync(sb.toString(), FINAL_MAX_TOKENS);
+    }
+
+    private CompletableFuture<String> generateAsync(String prompt, int maxOutputTokens) {
+        ObjectNode body = JSON.createObjectNode();
+        body.putArray("contents").addObject().putArray("parts").addObject().put("text", prompt);
+        body.putObject("generationConfig")
+                .put("temperature", TEMPERATURE)
+                .put("topK", TOP_K)
+                .put("topP", TOP_P)
+                .put("maxOutputTokens", maxOutputTokens);
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(URL))
+                .uri(endpoint)
+                .timeout(requestTimeout)
                 .header("Content-Type", "application/json")
                 .header("X-goog-api-key", apiKey)
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                 .build();
 
-        HttpResponse<String> response =
-                client.send(request, HttpResponse.BodyHandlers.ofString());
+        GeminiRateLimiter.Permit permit;
+        try {
+            permit = limiter.acquire(prompt.length() / CHARS_PER_TOKEN + maxOutputTokens);
+        } catch (GeminiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Gemini failure " + response.statusCode() +
-                    ": " + response.body());
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            limiter.release(permit, GeminiException.NO_RESPONSE, 0);
+            throw e;
         }
 
-        // Parse JSON to extract only the summary text
-        return extractText(response.body());
+        return sent.handle((response, error) -> {
+            if (error != null) {
+                limiter.release(permit, GeminiException.NO_RESPONSE, 0);
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                throw new GeminiException(GeminiException.NO_RESPONSE,
+                        "Gemini request failed: " + cause, cause);
+            }
+            if (response.statusCode() != 200) {
+                limiter.release(permit, response.statusCode(), 0);
+                throw new GeminiException(response.statusCode(), "Gemini failure " + response.statusCode() +
+                        ": " + response.body());
+            }
+            int usedTokens = 0;
+            try {
+                JsonNode json = parse(response.body());
+                usedTokens = json.path("usageMetadata").path("totalTokenCount").asInt(0);
+                // Parse JSON to extract only the summary text
+                return extractText(json);
+            } finally {
+                limiter.release(permit, 200, usedTokens);
+            }
+        });
     }
 
-    // Extracts the "text" field from Gemini's JSON response
-    private String extractText(String json) {
-        int idx = json.indexOf("\"text\":");
-        if (idx == -1) return json;
-
-        int start = json.indexOf("\"", idx + 7) + 1;
-        int end = json.indexOf("\"", start);
-
-        if (start < 0 || end < 0) return json;
-        return json.substring(start, end).replace("\\n", " ").trim();
+    private static JsonNode parse(String body) {
+        try {
+            return JSON.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new GeminiException(200, "Unreadable Gemini response: " + e.getOriginalMessage(), e);
+        }
     }
 
-    private String escape(String s) {
-        return s.replace("\"", "\\\"");
+    // Concatenates the text parts of the first candidate
+    private static String extractText(JsonNode json) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : json.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        return text.toString().replace("\n", " ").trim();
     }
-}
\ No newline at end of file
+}
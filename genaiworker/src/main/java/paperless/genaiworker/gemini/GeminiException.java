@@ -0,0 +1,34 @@
+package paperless.genaiworker.gemini;
+
+/**
+ * A Gemini call that did not produce a summary. {@link #isRetryable()} tells transient failures (rate limited,
+ * server error, no response, no capacity in the client-side limiter) apart from ones a retry cannot fix.
+ */
+public class GeminiException extends RuntimeException {
+
+    // no HTTP response: network error, timeout or rejected by GeminiRateLimiter
+    public static final int NO_RESPONSE = 0;
+
+    private final int status;
+
+    public GeminiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public GeminiException(int status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    public int getStatus() { return status; }
+
+    public boolean isRetryable() {
+        return status == NO_RESPONSE || isOverload(status);
+    }
+
+    // the responses that make GeminiRateLimiter back off
+    static boolean isOverload(int status) {
+        return status == 429 || status >= 500;
+    }
+}
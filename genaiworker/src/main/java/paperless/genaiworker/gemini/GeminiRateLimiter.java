@@ -0,0 +1,208 @@
+package paperless.genaiworker.gemini;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side limit for all Gemini calls of this worker.
+ * <p>
+ * Two token buckets hold the quota: one for requests per minute, one for (estimated) tokens per minute. Both refill
+ * continuously and start full, so a burst of up to one minute's quota goes out at once. On top of that the number
+ * of requests in flight is limited AIMD-style: every successful response raises the limit by {@code 1/limit} (about
+ * one per round of requests), a 429 or 5xx halves it. Only requests started after the last decrease can halve it
+ * again, so one overloaded round counts once. A 429 also empties the request bucket.
+ * <p>
+ * {@link #acquire} blocks until there is room; after {@code gemini.limit.maxWaitMs} it gives up with a retryable
+ * {@link GeminiException}, so the job can be retried later instead of holding a listener thread. Waiting uses a
+ * {@link ReentrantLock} rather than a monitor, so a waiting virtual thread does not pin its carrier.
+ */
+@Component
+public class GeminiRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiRateLimiter.class);
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final double requestsPerMinute;
+    private final double tokensPerMinute;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long maxWaitNanos;
+    private final Counter throttled;
+    private final LongSupplier nanoTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // signalled whenever a permit comes back
+    private final Condition released = lock.newCondition();
+
+    // guarded by lock
+    private double requests;
+    private double tokens;
+    private long refilledAt;
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseAt;
+
+    @Autowired
+    public GeminiRateLimiter(@Value("${gemini.limit.requestsPerMinute:30}") int requestsPerMinute,
+                             @Value("${gemini.limit.tokensPerMinute:1000000}") int tokensPerMinute,
+                             @Value("${gemini.limit.minConcurrency:1}") int minConcurrency,
+                             @Value("${gemini.limit.maxConcurrency:8}") int maxConcurrency,
+                             @Value("${gemini.limit.maxWaitMs:60000}") long maxWaitMs,
+                             MeterRegistry meterRegistry) {
+        this(requestsPerMinute, tokensPerMinute, minConcurrency, maxConcurrency, maxWaitMs, meterRegistry,
+                System::nanoTime);
+    }
+
+    // nanoTime drives refill and the AIMD rounds; tests pass a clock they can move
+    GeminiRateLimiter(int requestsPerMinute, int tokensPerMinute, int minConcurrency, int maxConcurrency,
+                      long maxWaitMs, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.requestsPerMinute = Math.max(1, requestsPerMinute);
+        this.tokensPerMinute = Math.max(1, tokensPerMinute);
+        this.minConcurrency = Math.max(1, minConcurrency);
+        this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.nanoTime = nanoTime;
+
+        long now = nanoTime.getAsLong();
+        this.requests = this.requestsPerMinute;
+        this.tokens = this.tokensPerMinute;
+        this.refilledAt = now;
+        this.limit = this.maxConcurrency;
+        this.lastDecreaseAt = now;
+
+        Gauge.builder("gemini.limit.concurrency", this, l -> l.currentLimit()).register(meterRegistry);
+        Gauge.builder("gemini.requests.inflight", this, l -> l.inFlight()).register(meterRegistry);
+        this.throttled = Counter.builder("gemini.requests.throttled").register(meterRegistry);
+    }
+
+    /**
+     * Blocks until a request of about {@code estimatedTokens} tokens may be sent.
+     * The returned permit must be handed back to {@link #release} once the response (or failure) is in.
+     */
+    public Permit acquire(int estimatedTokens) {
+        // a prompt larger than the whole bucket would otherwise wait forever
+        int cost = (int) Math.min(Math.max(estimatedTokens, 0), tokensPerMinute);
+        lock.lock();
+        try {
+            long now = nanoTime.getAsLong();
+            long deadline = now + maxWaitNanos;
+            while (true) {
+                refill(now);
+                long waitNanos;
+                if (inFlight >= (int) limit) {
+                    waitNanos = Long.MAX_VALUE; // until release() signals
+                } else if (requests < 1) {
+                    waitNanos = nanosUntil(1 - requests, requestsPerMinute);
+                } else if (tokens < cost) {
+                    waitNanos = nanosUntil(cost - tokens, tokensPerMinute);
+                } else {
+                    requests -= 1;
+                    tokens -= cost;
+                    inFlight++;
+                    return new Permit(now, cost);
+                }
+
+                long left = deadline - now;
+                if (left <= 0) {
+                    throttled.increment();
+                    throw new GeminiException(GeminiException.NO_RESPONSE,
+                            "No Gemini capacity within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+                }
+                try {
+                    released.awaitNanos(Math.min(waitNanos, left));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GeminiException(GeminiException.NO_RESPONSE,
+                            "Interrupted while waiting for Gemini capacity", e);
+                }
+                now = nanoTime.getAsLong();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit with the outcome of its request: the HTTP status ({@link GeminiException#NO_RESPONSE} if
+     * there was none) and the tokens the response reported as used, or 0 if unknown.
+     */
+    public void release(Permit permit, int status, int usedTokens) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (usedTokens > 0) {
+                // settle the estimate against what the API actually counted
+                tokens += permit.tokens - usedTokens;
+            }
+            if (GeminiException.isOverload(status)) {
+                if (status == 429) {
+                    refill(nanoTime.getAsLong());
+                    requests = Math.min(requests, 0);
+                }
+                if (permit.startedAt - lastDecreaseAt > 0) {
+                    double before = limit;
+                    limit = Math.max(minConcurrency, limit / 2);
+                    lastDecreaseAt = nanoTime.getAsLong();
+                    log.warn("Gemini answered {}; concurrency limit {} -> {}", status, (int) before, (int) limit);
+                }
+            } else if (status == 200) {
+                limit = Math.min(maxConcurrency, limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed <= 0) return;
+        requests = Math.min(requestsPerMinute, requests + elapsed * requestsPerMinute / NANOS_PER_MINUTE);
+        tokens = Math.min(tokensPerMinute, tokens + elapsed * tokensPerMinute / NANOS_PER_MINUTE);
+        refilledAt = now;
+    }
+
+    private static long nanosUntil(double missing, double perMinute) {
+        return Math.max(1, (long) Math.ceil(missing * NANOS_PER_MINUTE / perMinute));
+    }
+
+    public static final class Permit {
+        private final long startedAt;
+        private final int tokens;
+
+        private Permit(long startedAt, int tokens) {
+            this.startedAt = startedAt;
+            this.tokens = tokens;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package paperless.genaiworker.messaging;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import paperless.genaiworker.gemini.GeminiException;
 import paperless.genaiworker.service.GenAiWorkerService;
 import paperless.paperless.messaging.GenAiJobMessage;
 
@@ -12,15 +14,24 @@ public class GenAiConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(GenAiConsumer.class);
     private final GenAiWorkerService service;
+    private final GenAiRetryProducer retryProducer;
 
-    public GenAiConsumer(GenAiWorkerService service) {
+    public GenAiConsumer(GenAiWorkerService service, GenAiRetryProducer retryProducer) {
         this.service = service;
+        this.retryProducer = retryProducer;
     }
 
     @RabbitListener(queues = "${genai.queue.name}", containerFactory = "genAiListenerFactory")
-    public void onMessage(GenAiJobMessage msg) {
+    public void onMessage(GenAiJobMessage msg,
+                          @Header(name = GenAiRetryProducer.ATTEMPT_HEADER, required = false) Integer attempt) {
         log.info("Received GenAI job for docId={} (text path = {})",
                 msg.getDocumentId(), msg.getStoredTextPath());
-        service.process(msg);
+        try {
+            service.process(msg);
+        } catch (GeminiException e) {
+            // only retryable failures get here; the message is acked once the retry copy is published
+            log.warn("GenAI job for docId={} not done: {}", msg.getDocumentId(), e.getMessage());
+            retryProducer.retryLater(msg, attempt == null ? 1 : attempt);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package paperless.genaiworker.messaging;
+
+public class GenAiResultMessage {
+
+    private Long documentId;
+    private String summary;
+
+    public GenAiResultMessage() {}
+
+    public GenAiResultMessage(Long documentId, String summary) {
+        this.documentId = documentId;
+        this.summary = summary;
+    }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+}
@@ -0,0 +1,29 @@
+package paperless.genaiworker.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GenAiResultProducer {
+
+    private static final Logger log = LoggerFactory.getLogger(GenAiResultProducer.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Queue genAiResultQueue;
+
+    public GenAiResultProducer(RabbitTemplate rabbitTemplate,
+                               @Qualifier("genAiResultQueue") Queue genAiResultQueue) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.genAiResultQueue = genAiResultQueue;
+    }
+
+    public void send(GenAiResultMessage msg) {
+        String q = genAiResultQueue.getName();
+        log.info("Publishing summary to queue='{}' documentId={}", q, msg.getDocumentId());
+        rabbitTemplate.convertAndSend("", q, msg);
+    }
+}
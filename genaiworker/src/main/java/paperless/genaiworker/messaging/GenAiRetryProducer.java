@@ -0,0 +1,52 @@
+package paperless.genaiworker.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import paperless.paperless.messaging.GenAiJobMessage;
+
+/**
+ * Puts a job that failed for a transient reason (rate limit, Gemini overloaded or down) back on the GenAI queue
+ * after a delay: it waits in the {@code _RETRY} queue until its TTL expires and is then dead-lettered to the main
+ * queue. After {@code genai.retry.maxAttempts} attempts the job is parked in the {@code _DLQ} queue instead.
+ */
+@Component
+public class GenAiRetryProducer {
+
+    // delivery attempt of a job, 1 for the original message
+    public static final String ATTEMPT_HEADER = "genai-attempt";
+
+    private static final Logger log = LoggerFactory.getLogger(GenAiRetryProducer.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Queue retryQueue;
+    private final Queue parkingQueue;
+    private final int maxAttempts;
+
+    public GenAiRetryProducer(RabbitTemplate rabbitTemplate,
+                              @Qualifier("genAiRetryQueue") Queue retryQueue,
+                              @Qualifier("genAiDlq") Queue parkingQueue,
+                              @Value("${genai.retry.maxAttempts:20}") int maxAttempts) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryQueue = retryQueue;
+        this.parkingQueue = parkingQueue;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public void retryLater(GenAiJobMessage msg, int attempt) {
+        String q = attempt < maxAttempts ? retryQueue.getName() : parkingQueue.getName();
+        if (attempt < maxAttempts) {
+            log.info("Retrying GenAI job for docId={} later (attempt {} of {})", msg.getDocumentId(), attempt, maxAttempts);
+        } else {
+            log.error("GenAI job for docId={} failed {} times; parked in queue='{}'", msg.getDocumentId(), attempt, q);
+        }
+        rabbitTemplate.convertAndSend("", q, msg, m -> {
+            m.getMessageProperties().setHeader(ATTEMPT_HEADER, attempt + 1);
+            return m;
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package paperless.genaiworker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import paperless.genaiworker.gemini.GeminiClient;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Map-reduce summarisation for texts that do not fit one prompt.
+ * <p>
+ * The text is cut into chunks of about {@code genai.chunk.maxTokens} tokens while it is read. Each chunk is
+ * summarised as soon as it is complete, with at most {@code genai.chunk.parallelism} requests in flight, and the
+ * partial summaries are combined into the final summary. Short texts take a single request, as before.
+ */
+@Component
+public class ChunkedSummarizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedSummarizer.class);
+
+    // rough average for English prose; good enough to stay well below the model's context window
+    static final int CHARS_PER_TOKEN = 4;
+
+    private final GeminiClient gemini;
+    private final int maxChunkChars;
+    private final int parallelism;
+
+    public ChunkedSummarizer(GeminiClient gemini,
+                             @Value("${genai.chunk.maxTokens:8000}") int maxTokens,
+                             @Value("${genai.chunk.parallelism:4}") int parallelism) {
+        this.gemini = gemini;
+        this.maxChunkChars = Math.max(1, maxTokens) * CHARS_PER_TOKEN;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public String summarize(Reader text) throws Exception {
+        ChunkDispatch map = new ChunkDispatch();
+        TextChunker.split(text, maxChunkChars, map::add);
+
+        if (map.single != null) {
+            return join(gemini.summarizeAsync(map.single));
+        }
+        if (map.partials.isEmpty()) {
+            return "";
+        }
+
+        List<String> partials = new ArrayList<>(map.partials.size());
+        for (CompletableFuture<String> f : map.partials) partials.add(join(f));
+        log.info("Summarised {} chunks, combining", partials.size());
+        return join(gemini.combineAsync(reduce(partials)));
+    }
+
+    // Partial summaries of very long documents may themselves exceed a chunk; fold them until they fit.
+    private List<String> reduce(List<String> partials) throws Exception {
+        while (String.join("\n\n", partials).length() > maxChunkChars && partials.size() > 1) {
+            List<String> groups = TextChunker.split(String.join("\n\n", partials), maxChunkChars);
+            if (groups.size() >= partials.size()) break; // no progress: each partial fills a chunk on its own
+            List<CompletableFuture<String>> next = new ArrayList<>();
+            Semaphore permits = new Semaphore(parallelism);
+            for (int i = 0; i < groups.size(); i++) {
+                next.add(submit(permits, groups.get(i), i + 1));
+            }
+            partials = new ArrayList<>();
+            for (CompletableFuture<String> f : next) partials.add(join(f));
+        }
+        return truncate(partials, maxChunkChars);
+    }
+
+    // Last resort when folding cannot shrink the partials any further: keep the start of each one, so the
+    // combine prompt still fits a chunk.
+    static List<String> truncate(List<String> partials, int maxChars) {
+        if (String.join("\n\n", partials).length() <= maxChars) return partials;
+        int each = Math.max(1, (maxChars - 2 * (partials.size() - 1)) / partials.size());
+        log.warn("{} partial summaries still exceed {} chars; truncating each to {}", partials.size(), maxChars, each);
+        List<String> truncated = new ArrayList<>(partials.size());
+        for (String p : partials) truncated.add(p.length() > each ? p.substring(0, each) : p);
+        return truncated;
+    }
+
+    private CompletableFuture<String> submit(Semaphore permits, String chunk, int part) {
+        // blocking here stops reading further text while the maximum number of requests is in flight
+        permits.acquireUninterruptibly();
+        return gemini.summarizeChunkAsync(chunk, part)
+                .whenComplete((r, e) -> permits.release());
+    }
+
+    private static String join(CompletableFuture<String> f) throws Exception {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    // The first chunk is held back until a second one shows up, so a short text stays a single request.
+    private final class ChunkDispatch {
+        private final Semaphore permits = new Semaphore(parallelism);
+        private final List<CompletableFuture<String>> partials = new ArrayList<>();
+        private String single;
+        private int count;
+
+        void add(String chunk) {
+            count++;
+            if (count == 1) {
+                single = chunk;
+                return;
+            }
+            if (single != null) {
+                partials.add(submit(permits, single, 1));
+                single = null;
+            }
+            partials.add(submit(permits, chunk, count));
+        }
+    }
+}
@@ -4,16 +4,17 @@ import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import paperless.genaiworker.config.MinioConfig;
-import paperless.genaiworker.gemini.GeminiClient;
+import paperless.genaiworker.gemini.GeminiException;
+import paperless.genaiworker.messaging.GenAiResultMessage;
+import paperless.genaiworker.messaging.GenAiResultProducer;
 import paperless.paperless.messaging.GenAiJobMessage;
 
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
 
 @Service
 public class GenAiWorkerService {
@@ -22,19 +23,20 @@ public class GenAiWorkerService {
 
     private final MinioClient minio;
     private final MinioConfig minioCfg;
-    private final GeminiClient gemini;
-    private final RestTemplate restTemplate;
+    private final ChunkedSummarizer summarizer;
+    private final SummaryCache summaryCache;
+    private final GenAiResultProducer resultProducer;
 
-    @Value("${rest.base-url:http://web:80}")
-    private String restBaseUrl;
-
-    public GenAiWorkerService(MinioClient minio, MinioConfig cfg, GeminiClient gemini, RestTemplate restTemplate) {
+    public GenAiWorkerService(MinioClient minio, MinioConfig cfg, ChunkedSummarizer summarizer,
+                              SummaryCache summaryCache, GenAiResultProducer resultProducer) {
         this.minio = minio;
         this.minioCfg = cfg;
-        this.gemini = gemini;
-        this.restTemplate = restTemplate;
+        this.summarizer = summarizer;
+        this.summaryCache = summaryCache;
+        this.resultProducer = resultProducer;
     }
 
+    // Throws GeminiException if the summary could not be made for a transient reason; the job should be retried.
     public void process(GenAiJobMessage msg) {
         try {
             String bucket = minioCfg.getBucketName();
@@ -42,35 +44,45 @@ public class GenAiWorkerService {
 
             log.info("Fetching OCR text from MinIO: {}", textPath);
 
-            InputStream in = minio.getObject(
-                    GetObjectArgs.builder().bucket(bucket).object(textPath).build()
-            );
-            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
-
-            log.info("Calling Gemini for summary (text length = {})", text.length());
-            String summary = gemini.summarize(text);
+            String hash = null;
+            String summary = null;
+            if (summaryCache.isEnabled()) {
+                // the text is read twice on a miss; a second MinIO read is cheap next to an LLM call
+                try (Reader text = readText(bucket, textPath)) {
+                    hash = SummaryCache.hashNormalized(text);
+                }
+                summary = summaryCache.get(hash).orElse(null);
+                if (summary != null) log.info("Summary cache hit for docId={} (text {})", msg.getDocumentId(), hash);
+            }
 
-            if (summary != null) {
-                summary = summary.replaceAll("\\s+", " ").trim();
-                if (summary.length() > 350) {
-                    summary = summary.substring(0, 350);
+            if (summary == null) {
+                // chunks are summarised while the text is still being read
+                try (Reader text = readText(bucket, textPath)) {
+                    summary = summarizer.summarize(text);
+                }
+                if (summary != null) {
+                    summary = summary.replaceAll("\\s+", " ").trim();
+                    if (summary.length() > 350) {
+                        summary = summary.substring(0, 350);
+                    }
                 }
+                if (hash != null) summaryCache.put(hash, summary);
             }
 
             log.info("SUMMARY:\n{}", summary);
 
-            // Call REST API to store the summary
-            String url = restBaseUrl + "/api/documents/" + msg.getDocumentId() + "/summary";
-            log.info("Sending summary to REST service: {}", url);
-
-            restTemplate.postForEntity(
-                    url,
-                    Map.of("summary", summary),
-                    Void.class
-            );
+            resultProducer.send(new GenAiResultMessage(msg.getDocumentId(), summary));
 
+        } catch (GeminiException e) {
+            if (e.isRetryable()) throw e;
+            log.error("GenAI processing failed for document {}", msg.getDocumentId(), e);
         } catch (Exception e) {
             log.error("GenAI processing failed for document {}", msg.getDocumentId(), e);
         }
     }
-}
\ No newline at end of file
+
+    private Reader readText(String bucket, String textPath) throws Exception {
+        InputStream in = minio.getObject(GetObjectArgs.builder().bucket(bucket).object(textPath).build());
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
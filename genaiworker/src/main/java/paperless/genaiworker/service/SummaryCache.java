@@ -0,0 +1,132 @@
+package paperless.genaiworker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import paperless.genaiworker.config.MinioBucketInitializer;
+import paperless.genaiworker.config.MinioConfig;
+import paperless.genaiworker.gemini.GeminiClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Summaries stored in MinIO under {@code summaries/<promptVersion>/<sha256 of normalised text>.txt}.
+ * <p>
+ * The text is normalised (whitespace runs collapsed, trimmed) before hashing, so re-uploads and re-OCR runs that
+ * only differ in layout share one entry. The prompt version comes from {@link GeminiClient#promptVersion()}, so a
+ * prompt change starts a fresh namespace. Cache errors are logged and treated as misses.
+ */
+@Component
+public class SummaryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryCache.class);
+
+    private final MinioClient minio;
+    private final MinioConfig minioCfg;
+    private final MinioBucketInitializer bucket;
+    private final String prefix;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${genai.cache.enabled:true}")
+    private boolean enabled = true;
+
+    public SummaryCache(MinioClient minio, MinioConfig minioCfg, MinioBucketInitializer bucket, GeminiClient gemini,
+                        MeterRegistry meterRegistry) {
+        this.minio = minio;
+        this.minioCfg = minioCfg;
+        this.bucket = bucket;
+        this.prefix = "summaries/" + gemini.promptVersion() + "/";
+        this.hits = Counter.builder("genai.summary.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("genai.summary.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    // SHA-256 (hex) of the text with whitespace runs collapsed to one space and trimmed; reads the text once.
+    static String hashNormalized(Reader text) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder pending = new StringBuilder(8192);
+        char[] buf = new char[8192];
+        boolean started = false;
+        boolean space = false;
+        int n;
+        while ((n = text.read(buf)) > 0) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (Character.isWhitespace(c)) {
+                    space = started;
+                    continue;
+                }
+                if (space) pending.append(' ');
+                pending.append(c);
+                started = true;
+                space = false;
+            }
+            // a surrogate pair split across two reads has to be encoded as one character
+            int keep = pending.length() > 0 && Character.isHighSurrogate(pending.charAt(pending.length() - 1)) ? 1 : 0;
+            sha.update(pending.substring(0, pending.length() - keep).getBytes(StandardCharsets.UTF_8));
+            pending.delete(0, pending.length() - keep);
+        }
+        sha.update(pending.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    public Optional<String> get(String textHash) {
+        if (!enabled) return Optional.empty();
+        try (InputStream in = minio.getObject(
+                GetObjectArgs.builder().bucket(minioCfg.getBucketName()).object(key(textHash)).build())) {
+            hits.increment();
+            return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (ErrorResponseException e) {
+            if (!"NoSuchKey".equals(e.errorResponse().code())) {
+                log.warn("Summary cache lookup failed for {}: {}", textHash, e.toString());
+            }
+        } catch (Exception e) {
+            log.warn("Summary cache lookup failed for {}: {}", textHash, e.toString());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String textHash, String summary) {
+        if (!enabled || summary == null) return;
+        byte[] bytes = summary.getBytes(StandardCharsets.UTF_8);
+        try {
+            bucket.ensureBucket();
+            minio.putObject(PutObjectArgs.builder()
+                    .bucket(minioCfg.getBucketName())
+                    .object(key(textHash))
+                    .contentType("text/plain; charset=utf-8")
+                    .stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+                    .build());
+        } catch (Exception e) {
+            bucket.onWriteFailure(e);
+            log.warn("Could not cache summary for {}: {}", textHash, e.toString());
+        }
+    }
+
+    private String key(String textHash) {
+        return prefix + textHash + ".txt";
+    }
+}
@@ -0,0 +1,93 @@
+package paperless.genaiworker.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into chunks of at most {@code maxChars}, preferring page breaks ({@code \f}, as written by the
+ * OCR worker) and blank lines as boundaries. Paragraphs that are larger than a chunk are cut at whitespace.
+ * Chunks are handed to the sink as soon as they are complete, so the input never has to be held in memory.
+ */
+final class TextChunker {
+
+    private final int maxChars;
+    private final Consumer<String> sink;
+    private final StringBuilder chunk = new StringBuilder();
+    private final StringBuilder paragraph = new StringBuilder();
+
+    private TextChunker(int maxChars, Consumer<String> sink) {
+        this.maxChars = maxChars;
+        this.sink = sink;
+    }
+
+    static void split(Reader in, int maxChars, Consumer<String> sink) throws IOException {
+        if (maxChars < 1) throw new IllegalArgumentException("maxChars must be >= 1");
+        TextChunker c = new TextChunker(maxChars, sink);
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] pages = line.split("\f", -1);
+            for (int i = 0; i < pages.length; i++) {
+                if (i > 0) c.endParagraph();
+                c.addLine(pages[i]);
+            }
+        }
+        c.endParagraph();
+        c.emit();
+    }
+
+    static List<String> split(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        try {
+            split(new java.io.StringReader(text), maxChars, chunks::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for a StringReader
+        }
+        return chunks;
+    }
+
+    private void addLine(String line) {
+        if (line.isBlank()) {
+            endParagraph();
+            return;
+        }
+        if (paragraph.length() > 0) paragraph.append('\n');
+        paragraph.append(line);
+
+        while (paragraph.length() > maxChars) {
+            int cut = cutPoint(paragraph, maxChars);
+            emit();
+            chunk.append(paragraph, 0, cut);
+            emit();
+            paragraph.delete(0, cut);
+            while (paragraph.length() > 0 && Character.isWhitespace(paragraph.charAt(0))) {
+                paragraph.deleteCharAt(0);
+            }
+        }
+    }
+
+    private void endParagraph() {
+        if (paragraph.length() == 0) return;
+        if (chunk.length() > 0 && chunk.length() + 2 + paragraph.length() > maxChars) emit();
+        if (chunk.length() > 0) chunk.append("\n\n");
+        chunk.append(paragraph);
+        paragraph.setLength(0);
+    }
+
+    private void emit() {
+        if (chunk.length() > 0) sink.accept(chunk.toString());
+        chunk.setLength(0);
+    }
+
+    // last whitespace in the second half of the window, else a hard cut
+    private static int cutPoint(CharSequence s, int max) {
+        for (int i = max; i > max / 2; i--) {
+            if (Character.isWhitespace(s.charAt(i))) return i;
+        }
+        return max;
+    }
+}
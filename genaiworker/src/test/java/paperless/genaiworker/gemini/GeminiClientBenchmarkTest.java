@@ -0,0 +1,149 @@
+package paperless.genaiworker.gemini;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Time per summary through {@link GeminiClient} against a local HTTPS stub of the generateContent endpoint:
+ * a new HttpClient per call (the old behaviour) vs. one shared client, sequential and with all calls in flight
+ * at once. The stub speaks HTTP/1.1 only, so this shows connection and TLS reuse, not HTTP/2 multiplexing.
+ * Run with {@code mvn test -Dtest=GeminiClientBenchmarkTest -Dgenai.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "genai.benchmark", matches = "true")
+class GeminiClientBenchmarkTest {
+
+    private static final int CALLS = Integer.getInteger("genai.benchmark.calls", 300);
+    private static final String PASSWORD = "changeit";
+    private static final String RESPONSE =
+            "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"A short summary.\"}]}}]," +
+            "\"usageMetadata\":{\"totalTokenCount\":120}}";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sharedClient_vsNewClientPerCall() throws Exception {
+        SSLContext ssl = selfSignedContext(dir.resolve("stub.p12"));
+        // without it the stub's separate header and body writes meet the client's delayed ACK: +40 ms per call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(ssl));
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String baseUrl = "https://localhost:" + server.getAddress().getPort() + "/v1beta";
+            HttpClient shared = client(ssl);
+
+            // warm-up: JIT, TLS session cache, the stub's threads
+            sequential(() -> gemini(shared, baseUrl), CALLS);
+
+            double perCall = sequential(() -> gemini(client(ssl), baseUrl), CALLS);
+            GeminiClient sharedGemini = gemini(shared, baseUrl);
+            double sharedSequential = sequential(() -> sharedGemini, CALLS);
+            double sharedConcurrent = concurrent(sharedGemini, CALLS);
+
+            System.out.printf("%-32s %14s%n", "client", "ms per summary");
+            System.out.printf("%-32s %14.1f%n", "new client per call", perCall);
+            System.out.printf("%-32s %14.1f%n", "shared, sequential", sharedSequential);
+            System.out.printf("%-32s %14.1f%n", "shared, " + CALLS + " concurrent sendAsync", sharedConcurrent);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static double sequential(Supplier<GeminiClient> gemini, int calls) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            assertEquals("A short summary.", gemini.get().summarize("text " + i));
+        }
+        return (System.nanoTime() - start) / 1e6 / calls;
+    }
+
+    private static double concurrent(GeminiClient gemini, int calls) {
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(gemini.summarizeAsync("text " + i));
+        }
+        futures.forEach(f -> assertEquals("A short summary.", f.join()));
+        return (System.nanoTime() - start) / 1e6 / calls;
+    }
+
+    private static GeminiClient gemini(HttpClient client, String baseUrl) {
+        // limits far above what the benchmark sends, so only the HTTP path is measured
+        GeminiRateLimiter limiter = new GeminiRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE,
+                CALLS, CALLS, 60_000, new SimpleMeterRegistry());
+        return new GeminiClient(client, limiter, baseUrl, "stub-model", "test-key", 30_000);
+    }
+
+    // same settings as HttpClientConfig, plus trust in the stub's certificate
+    private static HttpClient client(SSLContext ssl) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .sslContext(ssl)
+                .build();
+    }
+
+    private static SSLContext selfSignedContext(Path keystore) throws Exception {
+        Process keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "stub", "-keyalg", "EC", "-validity", "1",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", PASSWORD, "-keypass", PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(keytool.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (keytool.waitFor() != 0) {
+            throw new IllegalStateException("keytool failed: " + output);
+        }
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            store.load(in, PASSWORD.toCharArray());
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(store, PASSWORD.toCharArray());
+        TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trust.init(store);
+        SSLContext ssl = SSLContext.getInstance("TLS");
+        ssl.init(keys.getKeyManagers(), trust.getTrustManagers(), null);
+        return ssl;
+    }
+}
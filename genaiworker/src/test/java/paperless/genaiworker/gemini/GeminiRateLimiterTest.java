@@ -0,0 +1,224 @@
+package paperless.genaiworker.gemini;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    // maxWaitMs 0: acquire fails at once instead of waiting, so the tests only move the fake clock
+    private GeminiRateLimiter limiter(int requestsPerMinute, int tokensPerMinute, int maxConcurrency) {
+        return new GeminiRateLimiter(requestsPerMinute, tokensPerMinute, 1, maxConcurrency, 0, meters, clock::get);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static void assertNoCapacity(GeminiRateLimiter limiter, int tokens) {
+        GeminiException e = assertThrows(GeminiException.class, () -> limiter.acquire(tokens));
+        assertTrue(e.isRetryable());
+    }
+
+    @Test
+    void requestBucket_startsFull_thenRefillsContinuously() {
+        GeminiRateLimiter limiter = limiter(60, 1_000_000, 100);
+        for (int i = 0; i < 60; i++) {
+            limiter.release(limiter.acquire(1), 200, 0);
+        }
+        assertNoCapacity(limiter, 1);
+
+        advance(999);
+        assertNoCapacity(limiter, 1);
+        advance(1);
+        limiter.release(limiter.acquire(1), 200, 0);
+        assertNoCapacity(limiter, 1);
+
+        // a long pause refills up to one minute's quota, not more
+        advance(TimeUnit.MINUTES.toMillis(10));
+        for (int i = 0; i < 60; i++) {
+            limiter.release(limiter.acquire(1), 200, 0);
+        }
+        assertNoCapacity(limiter, 1);
+    }
+
+    @Test
+    void tokenBucket_isChargedTheEstimate_andSettledWithTheReportedUsage() {
+        GeminiRateLimiter limiter = limiter(1000, 1000, 100);
+
+        GeminiRateLimiter.Permit first = limiter.acquire(600);
+        assertNoCapacity(limiter, 600);
+
+        // the API counted 200 tokens, not 600: the difference goes back into the bucket
+        limiter.release(first, 200, 200);
+        limiter.release(limiter.acquire(600), 200, 600);
+        assertNoCapacity(limiter, 600);
+
+        advance(TimeUnit.SECONDS.toMillis(24)); // +400 tokens
+        limiter.acquire(600);
+    }
+
+    @Test
+    void promptLargerThanTheBucket_isChargedTheWholeBucket() {
+        GeminiRateLimiter limiter = limiter(1000, 1000, 100);
+
+        limiter.acquire(5000);
+        assertNoCapacity(limiter, 1);
+    }
+
+    @Test
+    void acquire_waitsForTheBucketToRefill() {
+        // 1200 per minute: one request every 50 ms
+        GeminiRateLimiter limiter = new GeminiRateLimiter(1200, 1_000_000, 1, 100, 5000, meters);
+        for (int i = 0; i < 1200; i++) {
+            limiter.release(limiter.acquire(1), 200, 0);
+        }
+
+        long start = System.nanoTime();
+        limiter.acquire(1);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMs >= 25 && waitedMs < 2000, () -> "waited " + waitedMs + " ms");
+    }
+
+    @Test
+    void acquire_waitsForARelease_whenTheConcurrencyLimitIsReached() throws Exception {
+        GeminiRateLimiter limiter = new GeminiRateLimiter(1000, 1_000_000, 1, 1, 5000, meters);
+        GeminiRateLimiter.Permit first = limiter.acquire(1);
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<GeminiRateLimiter.Permit> second = CompletableFuture.supplyAsync(() -> {
+            waiting.countDown();
+            return limiter.acquire(1);
+        });
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.inFlight());
+
+        limiter.release(first, 200, 0);
+
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void acquire_givesUpAfterMaxWait_andCountsIt() {
+        GeminiRateLimiter limiter = new GeminiRateLimiter(1000, 1_000_000, 1, 1, 100, meters);
+        limiter.acquire(1);
+
+        long start = System.nanoTime();
+        GeminiException e = assertThrows(GeminiException.class, () -> limiter.acquire(1));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(GeminiException.NO_RESPONSE, e.getStatus());
+        assertTrue(e.isRetryable());
+        assertTrue(waitedMs >= 100, () -> "gave up after " + waitedMs + " ms");
+        assertEquals(1.0, meters.get("gemini.requests.throttled").counter().count());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void acquire_interrupted_failsRetryably_andKeepsTheInterruptFlag() {
+        GeminiRateLimiter limiter = new GeminiRateLimiter(1000, 1_000_000, 1, 1, 5000, meters);
+        limiter.acquire(1);
+
+        Thread.currentThread().interrupt();
+        try {
+            GeminiException e = assertThrows(GeminiException.class, () -> limiter.acquire(1));
+            assertTrue(e.isRetryable());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void overload_halvesTheLimit_onlyOncePerRound() {
+        GeminiRateLimiter limiter = limiter(1000, 1_000_000, 8);
+        advance(1);
+        List<GeminiRateLimiter.Permit> round = new ArrayList<>();
+        for (int i = 0; i < 8; i++) round.add(limiter.acquire(1));
+        advance(1);
+
+        // every request of the round fails; they were all sent before the first decrease
+        limiter.release(round.get(0), 503, 0);
+        assertEquals(4, limiter.currentLimit());
+        advance(1);
+        for (int i = 1; i < 8; i++) limiter.release(round.get(i), i % 2 == 0 ? 500 : 429, 0);
+        assertEquals(4, limiter.currentLimit());
+
+        // a request started after the decrease belongs to the next round (the wait lets the 429s' empty bucket refill)
+        advance(1000);
+        GeminiRateLimiter.Permit next = limiter.acquire(1);
+        advance(1);
+        limiter.release(next, 503, 0);
+        assertEquals(2, limiter.currentLimit());
+    }
+
+    @Test
+    void limit_neverDropsBelowMinConcurrency() {
+        GeminiRateLimiter limiter = new GeminiRateLimiter(1000, 1_000_000, 2, 4, 0, meters, clock::get);
+        for (int i = 0; i < 5; i++) {
+            advance(1);
+            GeminiRateLimiter.Permit permit = limiter.acquire(1);
+            advance(1);
+            limiter.release(permit, 503, 0);
+        }
+        assertEquals(2, limiter.currentLimit());
+    }
+
+    @Test
+    void success_raisesTheLimitByAboutOnePerRound_upToMaxConcurrency() {
+        GeminiRateLimiter limiter = limiter(1000, 1_000_000, 8);
+        advance(1);
+        GeminiRateLimiter.Permit failed = limiter.acquire(1);
+        advance(1);
+        limiter.release(failed, 503, 0);
+        assertEquals(4, limiter.currentLimit());
+
+        // 4 -> 4.25 -> 4.49 -> 4.71 -> 4.92 -> 5.12
+        for (int i = 0; i < 4; i++) limiter.release(limiter.acquire(1), 200, 0);
+        assertEquals(4, limiter.currentLimit());
+        limiter.release(limiter.acquire(1), 200, 0);
+        assertEquals(5, limiter.currentLimit());
+
+        for (int i = 0; i < 100; i++) limiter.release(limiter.acquire(1), 200, 0);
+        assertEquals(8, limiter.currentLimit());
+    }
+
+    @Test
+    void tooManyRequests_emptiesTheRequestBucket() {
+        GeminiRateLimiter limiter = limiter(60, 1_000_000, 8);
+        GeminiRateLimiter.Permit permit = limiter.acquire(1);
+
+        limiter.release(permit, 429, 0);
+        assertNoCapacity(limiter, 1);
+
+        advance(1000);
+        limiter.acquire(1);
+    }
+
+    @Test
+    void serverError_leavesTheRequestBucketAlone() {
+        GeminiRateLimiter limiter = limiter(60, 1_000_000, 8);
+        GeminiRateLimiter.Permit permit = limiter.acquire(1);
+
+        limiter.release(permit, 503, 0);
+        limiter.acquire(1);
+    }
+}
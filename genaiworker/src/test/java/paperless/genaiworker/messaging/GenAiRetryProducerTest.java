@@ -0,0 +1,101 @@
+package paperless.genaiworker.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import paperless.genaiworker.config.RabbitConfig;
+import paperless.genaiworker.gemini.GeminiException;
+import paperless.genaiworker.service.GenAiWorkerService;
+import paperless.paperless.messaging.GenAiJobMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GenAiRetryProducerTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private GenAiRetryProducer producer;
+    private final GenAiJobMessage msg = new GenAiJobMessage(7L, "ocr/7.txt");
+
+    @BeforeEach
+    void setup() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        RabbitConfig config = new RabbitConfig();
+        producer = new GenAiRetryProducer(rabbitTemplate,
+                config.genAiRetryQueue("GENAI", 30000), config.genAiDlq("GENAI"), 3);
+    }
+
+    // queue the copy was sent to, and the attempt header it carries
+    private Object[] sent() {
+        ArgumentCaptor<String> queue = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MessagePostProcessor> post = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(""), queue.capture(), same(msg), post.capture());
+        Message m = post.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        return new Object[]{queue.getValue(), m.getMessageProperties().getHeader(GenAiRetryProducer.ATTEMPT_HEADER)};
+    }
+
+    @Test
+    void retryLater_belowMaxAttempts_goesToTheRetryQueue_withTheNextAttempt() {
+        producer.retryLater(msg, 1);
+
+        Object[] sent = sent();
+        assertEquals("GENAI_RETRY", sent[0]);
+        assertEquals(2, sent[1]);
+    }
+
+    @Test
+    void retryLater_lastAttemptBeforeTheLimit_stillRetries() {
+        producer.retryLater(msg, 2);
+
+        assertEquals("GENAI_RETRY", sent()[0]);
+    }
+
+    @Test
+    void retryLater_atMaxAttempts_parksTheJobInTheDlq() {
+        producer.retryLater(msg, 3);
+
+        Object[] sent = sent();
+        assertEquals("GENAI_DLQ", sent[0]);
+        assertEquals(4, sent[1]);
+    }
+
+    @Test
+    void retryQueue_deadLettersExpiredJobsBackToTheMainQueue() {
+        Queue retry = new RabbitConfig().genAiRetryQueue("GENAI", 30000);
+
+        assertEquals(30000, retry.getArguments().get("x-message-ttl"));
+        assertEquals("", retry.getArguments().get("x-dead-letter-exchange"));
+        assertEquals("GENAI", retry.getArguments().get("x-dead-letter-routing-key"));
+    }
+
+    @Test
+    void consumer_countsAttemptsFromTheHeader_startingAtOne() throws Exception {
+        GenAiWorkerService service = mock(GenAiWorkerService.class);
+        GenAiRetryProducer retry = mock(GenAiRetryProducer.class);
+        doThrow(new GeminiException(429, "slow down")).when(service).process(msg);
+        GenAiConsumer consumer = new GenAiConsumer(service, retry);
+
+        consumer.onMessage(msg, null);
+        consumer.onMessage(msg, 5);
+
+        verify(retry).retryLater(msg, 1);
+        verify(retry).retryLater(msg, 5);
+    }
+
+    @Test
+    void consumer_success_doesNotRetry() throws Exception {
+        GenAiWorkerService service = mock(GenAiWorkerService.class);
+        GenAiRetryProducer retry = mock(GenAiRetryProducer.class);
+
+        new GenAiConsumer(service, retry).onMessage(msg, 2);
+
+        verify(service).process(msg);
+        verifyNoInteractions(retry);
+    }
+}
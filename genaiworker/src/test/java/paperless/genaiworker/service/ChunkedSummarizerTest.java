@@ -0,0 +1,111 @@
+package paperless.genaiworker.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import paperless.genaiworker.gemini.GeminiClient;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChunkedSummarizerTest {
+
+    // 10 tokens = 40 chars per chunk
+    private static final int MAX_TOKENS = 10;
+
+    private GeminiClient gemini;
+    private ChunkedSummarizer summarizer;
+
+    @BeforeEach
+    void setup() {
+        gemini = mock(GeminiClient.class);
+        summarizer = new ChunkedSummarizer(gemini, MAX_TOKENS, 2);
+        when(gemini.summarizeAsync(anyString())).thenReturn(CompletableFuture.completedFuture("single"));
+        when(gemini.combineAsync(anyList())).thenReturn(CompletableFuture.completedFuture("combined"));
+    }
+
+    @Test
+    void shortText_takesASingleRequest() throws Exception {
+        assertEquals("single", summarizer.summarize(new StringReader("short text")));
+
+        verify(gemini).summarizeAsync("short text");
+        verify(gemini, never()).summarizeChunkAsync(anyString(), anyInt());
+        verify(gemini, never()).combineAsync(anyList());
+    }
+
+    @Test
+    void emptyText_takesNoRequest() throws Exception {
+        assertEquals("", summarizer.summarize(new StringReader("")));
+
+        verifyNoInteractions(gemini);
+    }
+
+    @Test
+    void longText_summarisesEveryChunk_andCombinesThePartsInOrder() throws Exception {
+        when(gemini.summarizeChunkAsync(anyString(), anyInt()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture("p" + inv.getArgument(1, Integer.class)));
+
+        assertEquals("combined", summarizer.summarize(new StringReader(paragraphs(3))));
+
+        verify(gemini, times(3)).summarizeChunkAsync(anyString(), anyInt());
+        verify(gemini).combineAsync(List.of("p1", "p2", "p3"));
+        verify(gemini, never()).summarizeAsync(anyString());
+    }
+
+    @Test
+    void partialsLongerThanAChunk_areFoldedUntilTheyFit() throws Exception {
+        // 5 partials of 16 chars do not fit 40 chars together; two of them do, so they fold into 3 groups
+        when(gemini.summarizeChunkAsync(anyString(), anyInt())).thenAnswer(inv -> {
+            String chunk = inv.getArgument(0);
+            int part = inv.getArgument(1);
+            return CompletableFuture.completedFuture(
+                    chunk.startsWith("partial") ? "folded " + part : "partial " + part + " xxxxxx");
+        });
+
+        summarizer.summarize(new StringReader(paragraphs(5)));
+
+        verify(gemini).summarizeChunkAsync("partial 1 xxxxxx\n\npartial 2 xxxxxx", 1);
+        verify(gemini).summarizeChunkAsync("partial 3 xxxxxx\n\npartial 4 xxxxxx", 2);
+        verify(gemini).summarizeChunkAsync("partial 5 xxxxxx", 3);
+        verify(gemini).combineAsync(List.of("folded 1", "folded 2", "folded 3"));
+    }
+
+    @Test
+    void partialsThatCannotBeFolded_areTruncatedToFitOneChunk() throws Exception {
+        // every partial fills most of a chunk by itself, so grouping them makes no progress
+        when(gemini.summarizeChunkAsync(anyString(), anyInt()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(
+                        inv.getArgument(1, Integer.class) + "-".repeat(29)));
+
+        summarizer.summarize(new StringReader(paragraphs(3)));
+
+        verify(gemini, times(3)).summarizeChunkAsync(anyString(), anyInt());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> combined = ArgumentCaptor.forClass(List.class);
+        verify(gemini).combineAsync(combined.capture());
+        assertEquals(List.of("1-----------", "2-----------", "3-----------"), combined.getValue());
+        assertTrue(String.join("\n\n", combined.getValue()).length() <= MAX_TOKENS * ChunkedSummarizer.CHARS_PER_TOKEN);
+    }
+
+    @Test
+    void truncate_leavesPartialsThatFitUntouched() {
+        List<String> partials = List.of("one", "two");
+        assertEquals(partials, ChunkedSummarizer.truncate(partials, 8));
+        assertEquals(List.of("on", "tw"), ChunkedSummarizer.truncate(partials, 7));
+    }
+
+    // n paragraphs of 30 chars; two do not fit one chunk, so each becomes its own
+    private static String paragraphs(int n) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= n; i++) {
+            text.append("paragraph ").append(i).append(" ").append("x".repeat(18)).append("\n\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package paperless.genaiworker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import paperless.genaiworker.config.MinioBucketInitializer;
+import paperless.genaiworker.config.MinioConfig;
+import paperless.genaiworker.gemini.GeminiClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SummaryCacheTest {
+
+    // the read buffer of hashNormalized
+    private static final int BUFFER = 8192;
+
+    private MinioClient minio;
+    private SimpleMeterRegistry meters;
+    private SummaryCache cache;
+
+    @BeforeEach
+    void setup() {
+        minio = mock(MinioClient.class);
+        MinioConfig config = mock(MinioConfig.class);
+        when(config.getBucketName()).thenReturn("documents");
+        GeminiClient gemini = mock(GeminiClient.class);
+        when(gemini.promptVersion()).thenReturn("abc123");
+        meters = new SimpleMeterRegistry();
+        cache = new SummaryCache(minio, config, mock(MinioBucketInitializer.class), gemini, meters);
+    }
+
+    private static String hash(String text) throws IOException {
+        return SummaryCache.hashNormalized(new StringReader(text));
+    }
+
+    private static String sha256(String text) throws Exception {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private double count(String result) {
+        return meters.get("genai.summary.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void hashNormalized_isTheHashOfTheCollapsedTrimmedText() throws Exception {
+        assertEquals(sha256("a b c"), hash("a b c"));
+        assertEquals(sha256("a b c"), hash("  \n\ta  \r\n b\f\fc \n\n"));
+        assertEquals(sha256(""), hash(" \f\n "));
+        assertNotEquals(hash("ab c"), hash("a b c"));
+    }
+
+    @Test
+    void hashNormalized_collapsesWhitespaceRunsAcrossTheBufferBoundary() throws Exception {
+        String head = "x".repeat(BUFFER - 3);
+        String tail = "y".repeat(100);
+        String expected = sha256(head + " " + tail);
+
+        // the run starts before the boundary and ends after it
+        assertEquals(expected, hash(head + " \n\f\t  " + tail));
+        // the run starts exactly at the boundary
+        assertEquals(sha256("x".repeat(BUFFER) + " " + tail), hash("x".repeat(BUFFER) + "   \n" + tail));
+        // the run is the last thing in the first buffer
+        assertEquals(sha256("x".repeat(BUFFER - 1) + " y"), hash("x".repeat(BUFFER - 1) + " " + "\n".repeat(BUFFER) + "y"));
+    }
+
+    @Test
+    void hashNormalized_doesNotDependOnHowTheReaderSplitsTheText() throws Exception {
+        String text = ("page one  with\ttext\n\n\fpage two é 😀 ").repeat(2000);
+        String expected = hash(text);
+
+        // a reader that returns at most 7 chars per call splits every run and every surrogate pair somewhere
+        Reader trickle = new StringReader(text) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 7));
+            }
+        };
+        assertEquals(expected, SummaryCache.hashNormalized(trickle));
+        assertEquals(sha256(text.replaceAll("\\s+", " ").trim()), expected);
+    }
+
+    @Test
+    void hashNormalized_keepsASurrogatePairSplitByTheBufferBoundary() throws Exception {
+        String text = "x".repeat(BUFFER - 1) + "😀";
+
+        assertEquals(sha256(text), hash(text));
+    }
+
+    @Test
+    void get_hit_returnsTheStoredSummary_andCountsAHit() throws Exception {
+        when(minio.getObject(any(GetObjectArgs.class))).thenReturn(new GetObjectResponse(Headers.of(),
+                "documents", "", "summaries/abc123/h.txt", new ByteArrayInputStream("cached".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(Optional.of("cached"), cache.get("h"));
+
+        ArgumentCaptor<GetObjectArgs> args = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(minio).getObject(args.capture());
+        assertEquals("summaries/abc123/h.txt", args.getValue().object());
+        assertEquals(1.0, count("hit"));
+        assertEquals(0.0, count("miss"));
+    }
+
+    @Test
+    void get_noSuchKey_isAMiss() throws Exception {
+        when(minio.getObject(any(GetObjectArgs.class))).thenThrow(new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "not found", "documents", "k", "k", "req", "host"), null, null));
+
+        assertEquals(Optional.empty(), cache.get("h"));
+
+        assertEquals(0.0, count("hit"));
+        assertEquals(1.0, count("miss"));
+    }
+
+    @Test
+    void get_otherFailures_areMissesToo() throws Exception {
+        when(minio.getObject(any(GetObjectArgs.class))).thenThrow(new SocketTimeoutException("timeout"));
+
+        assertEquals(Optional.empty(), cache.get("h"));
+
+        assertEquals(1.0, count("miss"));
+    }
+
+    @Test
+    void put_storesTheSummaryUnderThePromptVersion() throws Exception {
+        cache.put("h", "summary");
+
+        ArgumentCaptor<PutObjectArgs> args = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minio).putObject(args.capture());
+        assertEquals("summaries/abc123/h.txt", args.getValue().object());
+        assertEquals("summary", new String(args.getValue().stream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+}
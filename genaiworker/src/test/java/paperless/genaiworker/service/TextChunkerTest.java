@@ -0,0 +1,77 @@
+package paperless.genaiworker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+    @Test
+    void shortText_isOneChunk() {
+        assertEquals(List.of("a\nb\n\nc"), TextChunker.split("a\nb\n\nc\n", 100));
+    }
+
+    @Test
+    void emptyOrBlankText_hasNoChunks() {
+        assertEquals(List.of(), TextChunker.split("", 10));
+        assertEquals(List.of(), TextChunker.split(" \n\n\t\n", 10));
+    }
+
+    @Test
+    void formFeed_endsAParagraph_evenWithinALine() {
+        assertEquals(List.of("page one\n\npage two"), TextChunker.split("page one\fpage two", 100));
+        assertEquals(List.of("page one", "page two"), TextChunker.split("page one\fpage two", 10));
+    }
+
+    @Test
+    void blankAndWhitespaceOnlyLines_separateParagraphs() {
+        assertEquals(List.of("a\nb", "c"), TextChunker.split("a\nb\n\nc", 4));
+        assertEquals(List.of("a", "b"), TextChunker.split("a\n  \t \nb", 3));
+    }
+
+    @Test
+    void paragraphs_arePackedIntoAChunkWhileTheyFit() {
+        assertEquals(List.of("aaa\n\nbbb", "ccc"), TextChunker.split("aaa\n\nbbb\n\nccc", 8));
+    }
+
+    @Test
+    void longParagraph_isCutAtTheLastWhitespaceInTheSecondHalf() {
+        assertEquals(List.of("aaaa bbbb", "cccc"), TextChunker.split("aaaa bbbb cccc", 10));
+    }
+
+    @Test
+    void longParagraph_withoutWhitespaceInTheSecondHalf_isCutHard() {
+        assertEquals(List.of("abcde", "fghij", "kl"), TextChunker.split("abcdefghijkl", 5));
+        assertEquals(List.of("ab cdefg", "hij"), TextChunker.split("ab cdefghij", 8));
+    }
+
+    @Test
+    void longParagraph_isNotMergedWithThePrecedingChunk() {
+        assertEquals(List.of("x", "aaaa bbbb", "cccc"), TextChunker.split("x\n\naaaa bbbb cccc", 10));
+    }
+
+    @Test
+    void noChunkExceedsMaxChars_andNoTextIsLost() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        String alphabet = "abcdefghij  \n\n\f";
+        for (int i = 0; i < 20_000; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        List<String> chunks = TextChunker.split(text.toString(), 97);
+
+        chunks.forEach(c -> assertTrue(c.length() <= 97, () -> "chunk of " + c.length() + " chars"));
+        assertEquals(text.toString().replaceAll("\\s", ""), String.join("", chunks).replaceAll("\\s", ""));
+    }
+
+    @Test
+    void maxCharsBelowOne_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TextChunker.split("text", 0));
+    }
+}
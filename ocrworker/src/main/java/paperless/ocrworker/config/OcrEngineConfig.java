@@ -0,0 +1,110 @@
+package paperless.ocrworker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import paperless.ocrworker.ocr.CliTesseractEngine;
+import paperless.ocrworker.ocr.NativeTesseractEngine;
+import paperless.ocrworker.ocr.OcrEnginePool;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+@Configuration
+public class OcrEngineConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrEngineConfig.class);
+
+    // native = warm libtesseract handles (tess4j), cli = fork tesseract per page
+    @Value("${ocr.engine:native}")
+    private String engine;
+
+    @Value("${ocr.langs:eng}")
+    private String ocrLangs;
+
+    @Value("${ocr.psm:6}")
+    private String ocrPsm;
+
+    @Value("${ocr.dpi:300}")
+    private int ocrDpi;
+
+    @Value("${ocr.timeoutSeconds:60}")
+    private long ocrTimeoutSeconds;
+
+    @Value("${ocr.tesseract-cmd:}")
+    private String tessCmdProp;
+
+    // pipe = image via stdin / text via stdout, file = temp PNG + out.txt
+    @Value("${ocr.cli.mode:pipe}")
+    private String cliMode;
+
+    // file mode only; empty = java.io.tmpdir
+    @Value("${ocr.cli.tmpDir:}")
+    private String cliTmpDir;
+
+    @Value("${ocr.tessdata-path:}")
+    private String tessdataPath;
+
+    @Value("${ocr.parallelism:0}")
+    private int ocrParallelism;
+
+    // 0 = one engine per OCR thread
+    @Value("${ocr.pool.size:0}")
+    private int poolSize;
+
+    @Value("${ocr.pool.maxPagesPerEngine:500}")
+    private int maxPagesPerEngine;
+
+    @Value("${ocr.pool.healthCheckIdleSeconds:60}")
+    private long healthCheckIdleSeconds;
+
+    @Value("${ocr.pool.warmUp:true}")
+    private boolean warmUp;
+
+    @Bean(destroyMethod = "close")
+    public OcrEnginePool ocrEnginePool() {
+        int threads = ocrParallelism > 0 ? ocrParallelism : Runtime.getRuntime().availableProcessors();
+        int size = poolSize > 0 ? poolSize : threads;
+
+        String engine = nativeLibraryLoads() ? this.engine : "cli";
+        OcrEnginePool.Factory factory;
+        if ("native".equalsIgnoreCase(engine)) {
+            int psm = Integer.parseInt(ocrPsm.trim());
+            factory = () -> new NativeTesseractEngine(tessdataPath, ocrLangs, psm, ocrDpi, ocrTimeoutSeconds);
+        } else {
+            String cmd = tesseractCmd();
+            boolean singleThreaded = threads > 1;
+            CliTesseractEngine.Mode mode = CliTesseractEngine.Mode.valueOf(cliMode.trim().toUpperCase(Locale.ROOT));
+            Path tmpDir = (cliTmpDir == null || cliTmpDir.isBlank()) ? null : Path.of(cliTmpDir);
+            factory = () -> new CliTesseractEngine(cmd, ocrLangs, ocrPsm, ocrDpi, ocrTimeoutSeconds,
+                    singleThreaded, mode, tmpDir);
+        }
+
+        OcrEnginePool pool = new OcrEnginePool(factory, size, maxPagesPerEngine, healthCheckIdleSeconds);
+        log.info("OCR engine '{}' with pool size {} (recycle after {} pages)", engine, size, maxPagesPerEngine);
+        if (warmUp) pool.warmUp();
+        return pool;
+    }
+
+    private boolean nativeLibraryLoads() {
+        if (!"native".equalsIgnoreCase(engine)) return true;
+        try {
+            log.info("Using libtesseract {}", NativeTesseractEngine.libraryVersion());
+            return true;
+        } catch (LinkageError e) {
+            log.warn("ocr.engine=native but libtesseract cannot be loaded, falling back to the cli engine: {}", e.toString());
+            return false;
+        }
+    }
+
+    private String tesseractCmd() {
+        String p = System.getProperty("ocr.tesseract-cmd");
+        if (p != null && !p.isBlank()) return p;
+        if (tessCmdProp != null && !tessCmdProp.isBlank()) return tessCmdProp;
+        String env = System.getenv("TESSERACT_CMD");
+        if (env != null && !env.isBlank()) return env;
+        return "tesseract";
+    }
+}
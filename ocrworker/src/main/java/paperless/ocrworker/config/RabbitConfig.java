@@ -9,8 +9,11 @@ import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitConfig {
@@ -64,16 +67,32 @@ public class RabbitConfig {
     @Bean
     public SimpleRabbitListenerContainerFactory ocrListenerFactory(
             ConnectionFactory cf,
-            Jackson2JsonMessageConverter conv) {
+            Jackson2JsonMessageConverter conv,
+            Environment environment,
+            @org.springframework.beans.factory.annotation.Value("${ocr.listener.concurrency:1}") int concurrency,
+            @org.springframework.beans.factory.annotation.Value("${ocr.listener.maxConcurrency:1}") int maxConcurrency,
+            @org.springframework.beans.factory.annotation.Value("${ocr.listener.prefetch:1}") int prefetch,
+            @org.springframework.beans.factory.annotation.Value("${ocr.listener.adaptive:false}") boolean adaptive,
+            @org.springframework.beans.factory.annotation.Value("${ocr.listener.adaptive.minConsumers:1}") int minConsumers) {
         SimpleRabbitListenerContainerFactory f = new SimpleRabbitListenerContainerFactory();
         f.setConnectionFactory(cf);
         f.setMessageConverter(conv);
 
         f.setDefaultRequeueRejected(false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // spring.threads.virtual.enabled on JDK 21+: consumers block on virtual threads
+            f.setTaskExecutor(new VirtualThreadTaskExecutor("ocr-listener-"));
+        }
 
-        f.setConcurrentConsumers(1);
-        f.setMaxConcurrentConsumers(1);
-        f.setPrefetchCount(1);
+        if (adaptive) {
+            // OcrConsumerScaler owns the consumer count; no max so the container's own scaling stays off
+            f.setConcurrentConsumers(Math.max(1, minConsumers));
+            f.setPrefetchCount(1);
+        } else {
+            f.setConcurrentConsumers(Math.max(1, concurrency));
+            f.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+            f.setPrefetchCount(Math.max(1, prefetch));
+        }
         return f;
     }
 
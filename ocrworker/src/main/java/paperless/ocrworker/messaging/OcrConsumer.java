@@ -11,16 +11,25 @@ import paperless.paperless.messaging.OcrJobMessage;
 public class OcrConsumer {
     private static final Logger log = LoggerFactory.getLogger(OcrConsumer.class);
     private final OcrWorkerService service;
+    private final OcrConsumerScaler scaler;
 
     public OcrConsumer(OcrWorkerService service,
+                       OcrConsumerScaler scaler,
                        @org.springframework.beans.factory.annotation.Value("${ocr.queue.name}") String q) {
         this.service = service;
+        this.scaler = scaler;
         log.info("Rabbit listener will consume from queue='{}'", q);
     }
 
-    @RabbitListener(queues = "${ocr.queue.name}", containerFactory = "ocrListenerFactory")
+    @RabbitListener(id = OcrConsumerScaler.LISTENER_ID, queues = "${ocr.queue.name}", containerFactory = "ocrListenerFactory")
     public void onMessage(OcrJobMessage msg) {
         log.info("Received OCR job message for file '{}'", msg.getFilename());
-        service.process(msg);
+        long start = System.nanoTime();
+        scaler.jobStarted();
+        try {
+            service.process(msg);
+        } finally {
+            scaler.jobFinished(System.nanoTime() - start);
+        }
     }
 }
\ No newline at end of file
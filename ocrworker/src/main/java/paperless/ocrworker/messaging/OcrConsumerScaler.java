@@ -0,0 +1,219 @@
+package paperless.ocrworker.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the OCR listener and, with {@code ocr.listener.adaptive=true}, resizes it.
+ * <p>
+ * Every {@code ocr.listener.adaptive.intervalSeconds} the queue depth and the CPU load are sampled.
+ * A consumer is added while jobs are waiting and the CPU has headroom, and removed when the CPU is
+ * saturated or consumers sit idle, always within {@code minConsumers..maxConsumers}. Prefetch follows
+ * the average job duration so each consumer holds about {@code prefetchBufferSeconds} of work; it applies
+ * to consumers started after the change.
+ * <p>
+ * Queue depth, consumers, busy consumers, utilization and job durations are published as
+ * {@code ocr.*} metrics either way.
+ */
+@Component
+public class OcrConsumerScaler {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrConsumerScaler.class);
+
+    static final String LISTENER_ID = "ocrConsumer";
+
+    // weight of the newest job in the average duration
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final RabbitListenerEndpointRegistry registry;
+    private final AmqpAdmin amqpAdmin;
+    private final String queueName;
+    private final Timer jobTimer;
+
+    @Value("${ocr.listener.adaptive:false}")
+    private boolean adaptive;
+
+    @Value("${ocr.listener.adaptive.minConsumers:1}")
+    private int minConsumers = 1;
+
+    @Value("${ocr.listener.adaptive.maxConsumers:4}")
+    private int maxConsumers = 4;
+
+    @Value("${ocr.listener.adaptive.intervalSeconds:15}")
+    private long intervalSeconds = 15;
+
+    // scale up below cpuLow, scale down above cpuHigh (0..1, whole machine/container)
+    @Value("${ocr.listener.adaptive.cpuLow:0.6}")
+    private double cpuLow = 0.6;
+
+    @Value("${ocr.listener.adaptive.cpuHigh:0.9}")
+    private double cpuHigh = 0.9;
+
+    @Value("${ocr.listener.adaptive.prefetchBufferSeconds:30}")
+    private double prefetchBufferSeconds = 30;
+
+    @Value("${ocr.listener.adaptive.maxPrefetch:10}")
+    private int maxPrefetch = 10;
+
+    private final AtomicLong queueDepth = new AtomicLong(-1);
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger prefetch = new AtomicInteger();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile double avgJobSeconds = Double.NaN;
+    private volatile double utilization;
+    private long lastSampleNanos = System.nanoTime();
+
+    private ScheduledExecutorService sampler;
+
+    public OcrConsumerScaler(RabbitListenerEndpointRegistry registry,
+                             AmqpAdmin amqpAdmin,
+                             MeterRegistry meterRegistry,
+                             @Value("${ocr.queue.name}") String queueName) {
+        this.registry = registry;
+        this.amqpAdmin = amqpAdmin;
+        this.queueName = queueName;
+
+        Gauge.builder("ocr.queue.depth", queueDepth, AtomicLong::get)
+                .description("Ready messages in the OCR queue (-1 = unknown)").register(meterRegistry);
+        Gauge.builder("ocr.listener.consumers", consumers, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("ocr.listener.prefetch", prefetch, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("ocr.listener.busy", busy, AtomicInteger::get)
+                .description("Consumers currently processing a job").register(meterRegistry);
+        Gauge.builder("ocr.listener.utilization", this, s -> s.utilization)
+                .description("Share of consumer time spent on jobs during the last interval").register(meterRegistry);
+        this.jobTimer = Timer.builder("ocr.job.duration").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ocr-consumer-scaler");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleWithFixedDelay(this::sampleSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        if (adaptive) {
+            log.info("Adaptive OCR consumers enabled: {}..{} consumers, prefetch up to {}",
+                    minConsumers, maxConsumers, maxPrefetch);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sampler != null) sampler.shutdownNow();
+    }
+
+    void jobStarted() {
+        busy.incrementAndGet();
+    }
+
+    void jobFinished(long nanos) {
+        busy.decrementAndGet();
+        busyNanos.addAndGet(nanos);
+        jobTimer.record(nanos, TimeUnit.NANOSECONDS);
+        double seconds = nanos / 1e9;
+        double avg = avgJobSeconds;
+        avgJobSeconds = Double.isNaN(avg) ? seconds : avg + EWMA_ALPHA * (seconds - avg);
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Exception e) {
+            log.warn("OCR consumer sampling failed: {}", e.toString());
+        }
+    }
+
+    private void sample() {
+        SimpleMessageListenerContainer container = container();
+        if (container == null) return;
+
+        QueueInformation info = amqpAdmin.getQueueInfo(queueName);
+        long depth = info != null ? info.getMessageCount() : -1;
+        queueDepth.set(depth);
+
+        int current = container.getActiveConsumerCount();
+        consumers.set(current);
+
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        lastSampleNanos = now;
+        long spent = busyNanos.getAndSet(0);
+        utilization = current > 0 && elapsed > 0 ? Math.min(1.0, (double) spent / ((double) elapsed * current)) : 0;
+
+        if (!adaptive) return;
+
+        double cpu = cpuLoad();
+        int target = nextConsumers(current, minConsumers, maxConsumers, cpu, cpuLow, cpuHigh, depth, busy.get());
+        int pf = prefetchFor(avgJobSeconds, prefetchBufferSeconds, maxPrefetch);
+
+        if (pf != prefetch.get()) {
+            container.setPrefetchCount(pf);
+            prefetch.set(pf);
+        }
+        if (target != current) {
+            log.info("Scaling OCR consumers {} -> {} (cpu={}%, queueDepth={}, busy={}, avgJob={}s, prefetch={})",
+                    current, target, Math.round(cpu * 100), depth, busy.get(),
+                    Double.isNaN(avgJobSeconds) ? "-" : String.format("%.1f", avgJobSeconds), pf);
+            container.setConcurrentConsumers(target);
+            consumers.set(target);
+        }
+    }
+
+    /**
+     * One step per interval, so the effect of a change shows in the CPU sample before the next one.
+     * A negative CPU load (not available) never scales up.
+     */
+    static int nextConsumers(int current, int min, int max, double cpu, double cpuLow, double cpuHigh,
+                             long queueDepth, int busy) {
+        int next = current;
+        if (cpu >= cpuHigh) {
+            next = current - 1;
+        } else if (queueDepth > 0 && cpu >= 0 && cpu < cpuLow) {
+            next = current + 1;
+        } else if (queueDepth == 0 && busy < current) {
+            // nothing waiting and someone idle
+            next = current - 1;
+        }
+        return Math.max(min, Math.min(max, next));
+    }
+
+    // Enough prefetched jobs to keep a consumer busy for bufferSeconds; 1 until durations are known.
+    static int prefetchFor(double avgJobSeconds, double bufferSeconds, int maxPrefetch) {
+        if (Double.isNaN(avgJobSeconds) || avgJobSeconds <= 0) return 1;
+        long n = Math.round(bufferSeconds / avgJobSeconds);
+        return (int) Math.max(1, Math.min(maxPrefetch, n));
+    }
+
+    private SimpleMessageListenerContainer container() {
+        MessageListenerContainer c = registry.getListenerContainer(LISTENER_ID);
+        return c instanceof SimpleMessageListenerContainer smlc ? smlc : null;
+    }
+
+    private static double cpuLoad() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getCpuLoad();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,195 @@
+package paperless.ocrworker.ocr;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forks one tesseract process per page. Stateless, so it is always healthy.
+ * <p>
+ * {@link Mode#PIPE} streams the page into tesseract's stdin and reads the text from stdout;
+ * {@link Mode#FILE} goes through a PNG and a text file in a temp directory.
+ */
+public class CliTesseractEngine implements OcrEngine {
+
+    public enum Mode { PIPE, FILE }
+
+    // kills tesseract processes that exceed the page timeout while we block on their stdout
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tesseract-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String tesseractCmd;
+    private final String langs;
+    private final String psm;
+    private final int dpi;
+    private final long timeoutSeconds;
+    private final boolean singleThreaded;
+    private final Mode mode;
+    private final Path tmpDir;
+
+    public CliTesseractEngine(String tesseractCmd, String langs, String psm, int dpi,
+                              long timeoutSeconds, boolean singleThreaded, Mode mode, Path tmpDir) {
+        this.tesseractCmd = tesseractCmd;
+        this.langs = langs;
+        this.psm = psm;
+        this.dpi = dpi;
+        this.timeoutSeconds = timeoutSeconds;
+        this.singleThreaded = singleThreaded;
+        this.mode = mode == null ? Mode.PIPE : mode;
+        this.tmpDir = tmpDir;
+    }
+
+    @Override
+    public String recognize(BufferedImage img) throws Exception {
+        return mode == Mode.PIPE ? recognizeViaPipe(img) : recognizeViaFiles(img);
+    }
+
+    private String recognizeViaPipe(BufferedImage img) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder(command("stdin", "stdout"));
+        if (singleThreaded) pb.environment().put("OMP_THREAD_LIMIT", "1");
+
+        Process p = pb.start();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> kill = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            p.destroyForcibly();
+        }, timeoutSeconds, TimeUnit.SECONDS);
+
+        try {
+            // tesseract reads stdin to EOF before it writes anything, so feeding then draining cannot deadlock
+            try (OutputStream stdin = new BufferedOutputStream(p.getOutputStream(), 64 * 1024)) {
+                writeImage(img, stdin);
+            } catch (IOException e) {
+                if (!timedOut.get() && p.isAlive()) throw e;
+                // tesseract died early; its exit code / stderr below explain why
+            }
+
+            String text;
+            String err;
+            int code;
+            try {
+                try (InputStream stdout = p.getInputStream()) {
+                    text = new String(stdout.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                try (InputStream stderr = p.getErrorStream()) {
+                    err = new String(stderr.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                code = p.waitFor();
+            } catch (IOException e) {
+                // destroyForcibly() closes the streams under us
+                if (!timedOut.get()) throw e;
+                code = -1;
+                text = err = "";
+            }
+            if (timedOut.get()) {
+                throw new RuntimeException("tesseract timed out after " + timeoutSeconds + "s");
+            }
+            if (code != 0) {
+                throw new RuntimeException("tesseract exited with " + code + ": " + err);
+            }
+            return text;
+        } finally {
+            kill.cancel(false);
+            if (p.isAlive()) p.destroyForcibly();
+        }
+    }
+
+    private String recognizeViaFiles(BufferedImage img) throws Exception {
+        Path dir     = tmpDir != null ? Files.createTempDirectory(tmpDir, "tess_") : Files.createTempDirectory("tess_");
+        Path inPng   = dir.resolve("in.png");
+        Path outBase = dir.resolve("out"); // tesseract will create out.txt
+        Path cliLog  = dir.resolve("cli.log");
+        try {
+            ImageIO.write(img, "png", inPng.toFile());
+
+            ProcessBuilder pb = new ProcessBuilder(command(inPng.toString(), outBase.toString()))
+                    .redirectErrorStream(true)
+                    .redirectOutput(cliLog.toFile());
+            if (singleThreaded) pb.environment().put("OMP_THREAD_LIMIT", "1");
+
+            Process p = pb.start();
+
+            // CLI output goes to a file so the timeout below is enforced while tesseract is still running
+            boolean finished = p.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            if (!finished) {
+                p.destroyForcibly();
+                throw new RuntimeException("tesseract timed out after " + timeoutSeconds + "s");
+            }
+            int code = p.exitValue();
+            if (code != 0) {
+                String cli = Files.exists(cliLog) ? Files.readString(cliLog, StandardCharsets.UTF_8) : "";
+                throw new RuntimeException("tesseract exited with " + code + ": " + cli);
+            }
+
+            Path outTxt = Path.of(outBase.toString() + ".txt");
+            if (!Files.exists(outTxt)) {
+                throw new IOException("tesseract did not produce output: " + outTxt);
+            }
+            return Files.readString(outTxt, StandardCharsets.UTF_8);
+
+        } finally {
+            try { Files.deleteIfExists(dir.resolve("out.txt")); } catch (Exception ignored) {}
+            try { Files.deleteIfExists(inPng); } catch (Exception ignored) {}
+            try { Files.deleteIfExists(cliLog); } catch (Exception ignored) {}
+            try { Files.deleteIfExists(dir); } catch (Exception ignored) {}
+        }
+    }
+
+    private List<String> command(String input, String output) {
+        return List.of(
+                tesseractCmd,
+                input,
+                output,
+                "-l", langs,
+                "--psm", psm,
+                "--oem", "1",
+                "--dpi", String.valueOf(Math.max(100, dpi))
+        );
+    }
+
+    // Grayscale pages go out as raw PGM (no compression work); anything else as PNG.
+    static void writeImage(BufferedImage img, OutputStream out) throws IOException {
+        if (img.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            ImageIO.write(img, "png", out);
+            return;
+        }
+        int w = img.getWidth();
+        int h = img.getHeight();
+        byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        int stride = ((ComponentSampleModel) img.getSampleModel()).getScanlineStride();
+
+        out.write(("P5\n" + w + " " + h + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+        if (stride == w && pixels.length == w * h) {
+            out.write(pixels);
+        } else {
+            for (int y = 0; y < h; y++) out.write(pixels, y * stride, w);
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // nothing held between pages
+    }
+}
@@ -0,0 +1,153 @@
+package paperless.ocrworker.ocr;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI.ETEXT_DESC;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.ITessAPI.TessCancelFunc;
+import net.sourceforge.tess4j.ITessAPI.TessOcrEngineMode;
+import net.sourceforge.tess4j.TessAPI1;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Keeps one libtesseract handle initialised, so the LSTM model and language data
+ * are loaded once per engine instead of once per page.
+ * <p>
+ * Each recognition runs under a tesseract progress monitor with a deadline of {@code timeoutSeconds}, and stops
+ * early when the calling thread is interrupted (e.g. the page was cancelled), like the CLI engine kills its process.
+ */
+public class NativeTesseractEngine implements OcrEngine {
+
+    private static final BufferedImage PROBE_IMAGE = blankImage(32, 32);
+
+    // called by tesseract on the recognising thread between words; a static field so JNA's callback stays reachable
+    private static final TessCancelFunc CANCEL_ON_INTERRUPT =
+            (cancelThis, words) -> Thread.currentThread().isInterrupted();
+
+    private final int dpi;
+    private final Duration timeout;
+    private TessBaseAPI handle;
+    private boolean broken;
+
+    public NativeTesseractEngine(String tessdataPath, String langs, int psm, int dpi, long timeoutSeconds)
+            throws IOException {
+        this(tessdataPath, langs, psm, dpi, Duration.ofSeconds(timeoutSeconds));
+    }
+
+    NativeTesseractEngine(String tessdataPath, String langs, int psm, int dpi, Duration timeout) throws IOException {
+        TessBaseAPI h = TessAPI1.TessBaseAPICreate();
+        String dataPath = (tessdataPath == null || tessdataPath.isBlank()) ? null : tessdataPath;
+        int rc = TessAPI1.TessBaseAPIInit2(h, dataPath, langs, TessOcrEngineMode.OEM_LSTM_ONLY);
+        if (rc != 0) {
+            TessAPI1.TessBaseAPIDelete(h);
+            throw new IOException("tesseract init failed (rc=" + rc + ") for langs='" + langs + "'");
+        }
+        TessAPI1.TessBaseAPISetPageSegMode(h, psm);
+        this.handle = h;
+        this.dpi = dpi;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Loads libtesseract if that has not happened yet and returns its version.
+     * Throws a {@link LinkageError} when the library is missing.
+     */
+    public static String libraryVersion() {
+        return TessAPI1.TessVersion();
+    }
+
+    @Override
+    public String recognize(BufferedImage grayImage) throws IOException {
+        if (handle == null || broken) throw new IOException("tesseract engine is closed");
+
+        // a subimage shares its parent's buffer, which does not start at its first pixel
+        BufferedImage img = grayImage.getType() == BufferedImage.TYPE_BYTE_GRAY && grayImage.getRaster().getParent() == null
+                ? grayImage : toGray(grayImage);
+        byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        int bytesPerLine = ((ComponentSampleModel) img.getSampleModel()).getScanlineStride();
+
+        ByteBuffer buf = ByteBuffer.allocateDirect(pixels.length);
+        buf.put(pixels).flip();
+        try {
+            TessAPI1.TessBaseAPISetImage(handle, buf, img.getWidth(), img.getHeight(), 1, bytesPerLine);
+            TessAPI1.TessBaseAPISetSourceResolution(handle, Math.max(100, dpi));
+            recognizeWithDeadline();
+
+            Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+            if (text == null) {
+                broken = true;
+                throw new IOException("tesseract returned no result");
+            }
+            try {
+                return text.getString(0, StandardCharsets.UTF_8.name());
+            } finally {
+                TessAPI1.TessDeleteText(text);
+            }
+        } finally {
+            TessAPI1.TessBaseAPIClear(handle);
+        }
+    }
+
+    // GetUTF8Text would recognise without a monitor; doing it here first bounds the run
+    private void recognizeWithDeadline() throws IOException {
+        ETEXT_DESC monitor = TessAPI1.TessMonitorCreate();
+        try {
+            TessAPI1.TessMonitorSetDeadlineMSecs(monitor, (int) Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+            TessAPI1.TessMonitorSetCancelFunc(monitor, CANCEL_ON_INTERRUPT);
+            if (TessAPI1.TessBaseAPIRecognize(handle, monitor) != 0) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("tesseract cancelled");
+                throw new IOException("tesseract did not finish the page within " + timeout.toMillis() + " ms");
+            }
+        } finally {
+            TessAPI1.TessMonitorDelete(monitor);
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        if (handle == null || broken) return false;
+        try {
+            recognize(PROBE_IMAGE);
+            return true;
+        } catch (Exception e) {
+            broken = true;
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (handle == null) return;
+        TessAPI1.TessBaseAPIEnd(handle);
+        TessAPI1.TessBaseAPIDelete(handle);
+        handle = null;
+    }
+
+    private static BufferedImage toGray(BufferedImage src) {
+        BufferedImage gray = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try { g.drawImage(src, 0, 0, null); } finally { g.dispose(); }
+        return gray;
+    }
+
+    private static BufferedImage blankImage(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
@@ -0,0 +1,18 @@
+package paperless.ocrworker.ocr;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One tesseract instance that recognises a single page image at a time.
+ * Engines are not thread-safe; {@link OcrEnginePool} hands each one to a single caller at a time.
+ */
+public interface OcrEngine extends AutoCloseable {
+
+    String recognize(BufferedImage grayImage) throws Exception;
+
+    // cheap liveness probe; unhealthy engines are discarded by the pool
+    boolean isHealthy();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,129 @@
+package paperless.ocrworker.ocr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounded pool of long-lived {@link OcrEngine}s.
+ * Engines are health-checked when they have been idle for a while, discarded after a failure,
+ * and recycled after a fixed number of pages so native memory growth stays bounded.
+ */
+public class OcrEnginePool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrEnginePool.class);
+
+    @FunctionalInterface
+    public interface Factory {
+        OcrEngine create() throws Exception;
+    }
+
+    private final Factory factory;
+    private final int size;
+    private final int maxPagesPerEngine;
+    private final long healthCheckIdleMillis;
+
+    private final Semaphore permits;
+    // LIFO so the most recently used (hottest) engine is reused first
+    private final BlockingDeque<PooledEngine> idle = new LinkedBlockingDeque<>();
+    private volatile boolean closed;
+
+    public OcrEnginePool(Factory factory, int size, int maxPagesPerEngine, long healthCheckIdleSeconds) {
+        this.factory = factory;
+        this.size = Math.max(1, size);
+        this.maxPagesPerEngine = Math.max(1, maxPagesPerEngine);
+        this.healthCheckIdleMillis = TimeUnit.SECONDS.toMillis(Math.max(0, healthCheckIdleSeconds));
+        this.permits = new Semaphore(this.size, true);
+    }
+
+    public int size() { return size; }
+
+    public int idleCount() { return idle.size(); }
+
+    // Creates engines up front so the first pages do not pay the model load.
+    public void warmUp() {
+        for (int i = idle.size(); i < size; i++) {
+            try {
+                idle.offerLast(new PooledEngine(factory.create()));
+            } catch (Exception e) {
+                log.warn("OCR engine warm-up failed after {} engine(s): {}", i, e.toString());
+                return;
+            }
+        }
+        log.info("OCR engine pool warmed up with {} engine(s)", idle.size());
+    }
+
+    public String recognize(BufferedImage img, long timeout, TimeUnit unit) throws Exception {
+        if (closed) throw new IllegalStateException("OCR engine pool is closed");
+        if (!permits.tryAcquire(timeout, unit)) {
+            throw new TimeoutException("No OCR engine available within " + timeout + " " + unit);
+        }
+        PooledEngine pe = null;
+        boolean healthy = true;
+        try {
+            pe = borrow();
+            String text = pe.engine.recognize(img);
+            pe.pages++;
+            return text;
+        } catch (Exception e) {
+            healthy = pe == null || pe.engine.isHealthy();
+            throw e;
+        } finally {
+            if (pe != null) giveBack(pe, healthy);
+            permits.release();
+        }
+    }
+
+    private PooledEngine borrow() throws Exception {
+        PooledEngine pe;
+        while ((pe = idle.pollFirst()) != null) {
+            boolean stale = System.currentTimeMillis() - pe.lastUsed >= healthCheckIdleMillis;
+            if (!stale || pe.engine.isHealthy()) return pe;
+            log.warn("Discarding unhealthy OCR engine after {} page(s)", pe.pages);
+            closeQuietly(pe);
+        }
+        return new PooledEngine(factory.create());
+    }
+
+    private void giveBack(PooledEngine pe, boolean healthy) {
+        if (closed || !healthy) {
+            if (!healthy) log.warn("Discarding OCR engine after failure ({} page(s) processed)", pe.pages);
+            closeQuietly(pe);
+            return;
+        }
+        if (pe.pages >= maxPagesPerEngine) {
+            log.info("Recycling OCR engine after {} page(s)", pe.pages);
+            closeQuietly(pe);
+            return;
+        }
+        pe.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(pe);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledEngine pe;
+        while ((pe = idle.pollFirst()) != null) closeQuietly(pe);
+    }
+
+    private static void closeQuietly(PooledEngine pe) {
+        try { pe.engine.close(); } catch (Exception ignored) {}
+    }
+
+    private static final class PooledEngine {
+        final OcrEngine engine;
+        int pages;
+        long lastUsed = System.currentTimeMillis();
+
+        PooledEngine(OcrEngine engine) {
+            this.engine = engine;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package paperless.ocrworker.service;
+
+/**
+ * Summary of one document's text run: a short preview (the full text is streamed to MinIO)
+ * plus pages run through tesseract vs. pages whose embedded text layer was taken as-is,
+ * and the page-1 thumbnail if one was rendered.
+ */
+public class OcrOutcome {
+
+    private final String preview;
+    private final int ocrPages;
+    private final int extractedPages;
+    private final byte[] thumbnail;
+
+    public OcrOutcome(String preview, int ocrPages, int extractedPages) {
+        this(preview, ocrPages, extractedPages, null);
+    }
+
+    public OcrOutcome(String preview, int ocrPages, int extractedPages, byte[] thumbnail) {
+        this.preview = preview;
+        this.ocrPages = ocrPages;
+        this.extractedPages = extractedPages;
+        this.thumbnail = thumbnail;
+    }
+
+    public String getPreview() { return preview; }
+
+    public int getOcrPages() { return ocrPages; }
+
+    public int getExtractedPages() { return extractedPages; }
+
+    // JPEG bytes, or null
+    public byte[] getThumbnail() { return thumbnail; }
+}
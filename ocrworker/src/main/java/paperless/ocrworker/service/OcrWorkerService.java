@@ -5,17 +5,22 @@ import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.StatObjectArgs;
 import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PreDestroy;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import paperless.ocrworker.config.MinioBucketInitializer;
 import paperless.ocrworker.config.MinioConfig;
 import paperless.ocrworker.messaging.OcrResultProducer;
+import paperless.ocrworker.ocr.OcrEnginePool;
 import paperless.paperless.messaging.OcrJobMessage;
 import paperless.ocrworker.messaging.OcrResultMessage;
 import paperless.paperless.messaging.GenAiJobMessage;
@@ -23,15 +28,26 @@ import paperless.paperless.messaging.GenAiJobMessage;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.Writer;
 import java.nio.file.*;
 import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class OcrWorkerService {
@@ -39,41 +55,56 @@ public class OcrWorkerService {
 
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
+    private final MinioBucketInitializer bucketInitializer;
     private final RabbitTemplate rabbitTemplate;
     private final OcrResultProducer resultProducer;
+    private final OcrEnginePool enginePool;
 
     private static final int MINIO_MAX_ATTEMPTS = 3;
     private static final long MINIO_BACKOFF_MS = 300;
-
-    @Value("${ocr.langs:eng}")
-    private String ocrLangs;
-
-    @Value("${ocr.psm:6}")
-    private String ocrPsm;
+    private static final int PREVIEW_CHARS = 400;
 
     @Value("${ocr.dpi:300}")
     private int ocrDpi;
 
-    @Value("${ocr.maxPages:3}")
-    private int ocrMaxPages;
-
     @Value("${ocr.timeoutSeconds:60}")
     private long ocrTimeoutSeconds;
 
     @Value("${ocr.storeText:true}")
     private boolean storeTextToMinio;
 
-    @Value("${ocr.tesseract-cmd:}")
-    private String tessCmdProp;
-
     @Value("${genai.queue.name:GENAI_QUEUE}")
     private String genAiQueueName;
 
-    public OcrWorkerService(MinioClient minioClient, MinioConfig minioConfig, RabbitTemplate rabbitTemplate, OcrResultProducer resultProducer) {
+    // 0 = one OCR thread per available core
+    @Value("${ocr.parallelism:0}")
+    private int ocrParallelism;
+
+    // 0 = twice the parallelism; bounds rendered pages held in memory per document
+    @Value("${ocr.maxInFlightPages:0}")
+    private int ocrMaxInFlightPages;
+
+    // a page whose text layer has at least this many non-whitespace chars is taken as-is; 0 = always OCR
+    @Value("${ocr.textLayer.minChars:20}")
+    private int textLayerMinChars;
+
+    // width in px of the page-1 thumbnail stored next to PDFs; 0 = no thumbnails
+    @Value("${ocr.thumbnail.width:320}")
+    private int thumbnailWidth;
+
+    @Value("${ocr.thumbnail.quality:0.8}")
+    private float thumbnailQuality;
+
+    private volatile ExecutorService pageExecutor;
+
+    public OcrWorkerService(MinioClient minioClient, MinioConfig minioConfig, MinioBucketInitializer bucketInitializer,
+                            RabbitTemplate rabbitTemplate, OcrResultProducer resultProducer, OcrEnginePool enginePool) {
         this.minioClient = minioClient;
         this.minioConfig = minioConfig;
+        this.bucketInitializer = bucketInitializer;
         this.rabbitTemplate = rabbitTemplate;
         this.resultProducer = resultProducer;
+        this.enginePool = enginePool;
     }
 
     public void process(OcrJobMessage msg) {
@@ -108,32 +139,39 @@ public class OcrWorkerService {
                 throw e;
             }
 
-            // 2) OCR
-            String text = isPdf(ext) ? ocrPdf(temp) : ocrImage(temp);
-
-            // 3) Preview
-            String preview = text == null ? "" : (text.length() > 400 ? text.substring(0, 400) + "..." : text);
-            log.info("OCR result for '{}' (first 400 chars):\n{}", filename, preview);
-
-            // 4) Store .txt next to original
+            // 2) OCR (PDF pages with a usable text layer are extracted instead)
             if (!storeTextToMinio) {
+                OcrOutcome outcome = extractText(temp, ext, Writer.nullWriter());
+                log.info("OCR result for '{}' (first {} chars):\n{}", filename, PREVIEW_CHARS, outcome.getPreview());
                 log.warn("ocr.storeText=false, not storing OCR text and not publishing result message (needs textKey).");
                 return;
             }
 
-            if (text != null) {
-                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
-                putToMinioWithRetry(bucket, textKey, bytes);
-                log.info("Stored OCR text to MinIO as '{}'", textKey);
+            // 3) Stream page text into the .txt next to the original while pages are processed
+            bucketInitializer.ensureBucket();
+            OcrOutcome outcome;
+            try (TextObjectUpload upload = new TextObjectUpload(minioClient, bucket, textKey)) {
+                outcome = extractText(temp, ext, upload.writer());
+                upload.complete();
+            }
+            log.info("OCR result for '{}' (first {} chars):\n{}", filename, PREVIEW_CHARS, outcome.getPreview());
+            log.info("Stored OCR text to MinIO as '{}' ({} page(s) OCR'd, {} page(s) extracted from text layer)",
+                    textKey, outcome.getOcrPages(), outcome.getExtractedPages());
+            if (outcome.getThumbnail() != null) {
+                storeThumbnail(bucket, key + Thumbnails.SUFFIX, outcome.getThumbnail());
             }
 
-            // 5) Send message to GenAI queue
+            // 4) Send message to GenAI queue
             sendGenAiJob(msg.getDocumentId(), textKey);
 
-            // 6) Publish OCR result
-            resultProducer.send(new OcrResultMessage(msg.getDocumentId(), key, textKey, OffsetDateTime.now()));
+            // 5) Publish OCR result
+            OcrResultMessage result = new OcrResultMessage(msg.getDocumentId(), key, textKey, OffsetDateTime.now());
+            result.setOcrPages(outcome.getOcrPages());
+            result.setExtractedPages(outcome.getExtractedPages());
+            resultProducer.send(result);
 
         } catch (Exception e) {
+            bucketInitializer.onWriteFailure(e);
             log.error("OCR processing failed for '{}'", filename, e);
         } finally {
             if (temp != null) try { Files.deleteIfExists(temp); } catch (Exception ignored) {}
@@ -142,81 +180,204 @@ public class OcrWorkerService {
 
     // OCR core
 
+    private OcrOutcome extractText(Path file, String ext, Writer out) throws Exception {
+        if (isPdf(ext)) return ocrPdf(file, out);
+        String text = ocrImage(file);
+        out.write(text);
+        return new OcrOutcome(preview(text), 1, 0);
+    }
+
     protected String ocrImage(Path imagePath) throws Exception {
         BufferedImage img = ImageIO.read(imagePath.toFile());
         if (img == null) throw new IOException("Unsupported image: " + imagePath);
 
         BufferedImage gray = toGrayscale(img);
-        return doOcrBufferedImageViaCli(gray);
+        return recognizePage(gray);
     }
 
-    protected String ocrPdf(Path pdfPath) throws Exception {
-        StringBuilder sb = new StringBuilder();
-        try (PDDocument doc = Loader.loadPDF(pdfPath.toFile())) {
+    /**
+     * Writes the text of every page to {@code out}, in order, separated by form feeds.
+     * Pages are rendered one at a time and at most {@code ocr.maxInFlightPages} rendered or recognised
+     * pages are held at once, so memory stays flat no matter how long the document is.
+     */
+    protected OcrOutcome ocrPdf(Path pdfPath, Writer out) throws Exception {
+        StringBuilder preview = new StringBuilder();
+        int ocrPages = 0;
+        int extractedPages = 0;
+        int written = 0;
+        byte[] thumbnail;
+        // temp-file stream cache: decoded streams of big PDFs do not end up on the heap
+        try (PDDocument doc = Loader.loadPDF(pdfPath.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            // no cross-page cache of fonts/images; each page's resources become garbage once it is rendered
+            doc.setResourceCache(null);
             PDFRenderer renderer = new PDFRenderer(doc);
-            int pages = Math.min(doc.getNumberOfPages(), Math.max(1, ocrMaxPages));
-            for (int i = 0; i < pages; i++) {
-                BufferedImage img = renderer.renderImageWithDPI(i, ocrDpi, ImageType.RGB);
-                BufferedImage gray = toGrayscale(img);
-                String pageText = doOcrBufferedImageViaCli(gray);
-                sb.append(pageText).append("\n");
+            PDFTextStripper stripper = new PDFTextStripper();
+            int pages = doc.getNumberOfPages();
+            thumbnail = pages > 0 ? thumbnail(doc, renderer) : null;
+
+            // Rendering stays on this thread (PDDocument is not thread-safe); only tesseract runs in parallel.
+            // The window of pending pages is drained in page order before the next page is rendered.
+            ExecutorService executor = pageExecutor();
+            int window = maxInFlightPages();
+            Deque<Future<String>> pending = new ArrayDeque<>(window);
+            try {
+                for (int i = 0; i < pages; i++) {
+                    while (pending.size() >= window) {
+                        written++;
+                        writePage(out, preview, awaitPage(pending.removeFirst(), written), written);
+                    }
+
+                    String layer = textLayer(doc, stripper, i);
+                    if (layer != null) {
+                        pending.addLast(CompletableFuture.completedFuture(layer));
+                        extractedPages++;
+                        continue;
+                    }
+
+                    BufferedImage gray = toGrayscale(renderer.renderImageWithDPI(i, ocrDpi, ImageType.RGB));
+                    PageTask task = new PageTask(() -> recognizePage(gray));
+                    executor.execute(task);
+                    pending.addLast(task);
+                    ocrPages++;
+                }
+
+                while (!pending.isEmpty()) {
+                    written++;
+                    writePage(out, preview, awaitPage(pending.removeFirst(), written), written);
+                }
+            } finally {
+                for (Future<String> f : pending) f.cancel(true);
             }
         }
-        return sb.toString();
+        return new OcrOutcome(preview(preview), ocrPages, extractedPages, thumbnail);
     }
 
-    private BufferedImage toGrayscale(BufferedImage src) {
-        BufferedImage gray = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g = gray.createGraphics();
-        try { g.drawImage(src, 0, 0, null); } finally { g.dispose(); }
-        return gray;
+    // A by-product of the open document; a page that cannot be rendered small must not fail the OCR run.
+    private byte[] thumbnail(PDDocument doc, PDFRenderer renderer) {
+        if (thumbnailWidth <= 0) return null;
+        try {
+            return Thumbnails.jpeg(Thumbnails.renderFirstPage(doc, renderer, thumbnailWidth), thumbnailQuality);
+        } catch (Exception e) {
+            log.warn("Could not render thumbnail: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static void writePage(Writer out, StringBuilder preview, String text, int pageNo) throws IOException {
+        String page = (pageNo > 1 ? "\f" : "") + text + "\n";
+        out.write(page);
+        if (preview.length() <= PREVIEW_CHARS) {
+            preview.append(page, 0, Math.min(page.length(), PREVIEW_CHARS + 1 - preview.length()));
+        }
     }
 
-    private String doOcrBufferedImageViaCli(BufferedImage img) throws Exception {
-        Path tmpDir  = Files.createTempDirectory("tess_");
-        Path inPng   = tmpDir.resolve("in.png");
-        Path outBase = tmpDir.resolve("out"); // tesseract will create out.txt
+    private static String preview(CharSequence text) {
+        if (text == null) return "";
+        return text.length() > PREVIEW_CHARS ? text.subSequence(0, PREVIEW_CHARS) + "..." : text.toString();
+    }
+
+    // Text of a born-digital page, or null if the page needs OCR (scanned / image-only / too little text).
+    private String textLayer(PDDocument doc, PDFTextStripper stripper, int pageIndex) {
+        if (textLayerMinChars <= 0) return null;
         try {
-            ImageIO.write(img, "png", inPng.toFile());
-
-            Process p = new ProcessBuilder(
-                    tesseractCmd(),
-                    inPng.toString(),
-                    outBase.toString(),
-                    "-l", ocrLangs,
-                    "--psm", ocrPsm,
-                    "--oem", "1",
-                    "--dpi", String.valueOf(Math.max(100, ocrDpi))
-            ).redirectErrorStream(true).start();
-
-            // capture CLI output (useful when it fails)
-            StringBuilder cli = new StringBuilder();
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = r.readLine()) != null) cli.append(line).append('\n');
-            }
+            stripper.setStartPage(pageIndex + 1);
+            stripper.setEndPage(pageIndex + 1);
+            String text = stripper.getText(doc);
+            return text.codePoints().filter(c -> !Character.isWhitespace(c)).limit(textLayerMinChars).count()
+                    >= textLayerMinChars ? text.strip() : null;
+        } catch (Exception e) {
+            log.debug("Text layer of page {} not readable, falling back to OCR: {}", pageIndex + 1, e.toString());
+            return null;
+        }
+    }
 
-            boolean finished = p.waitFor(ocrTimeoutSeconds, TimeUnit.SECONDS);
-            if (!finished) {
-                p.destroyForcibly();
-                throw new RuntimeException("tesseract timed out after " + ocrTimeoutSeconds + "s");
-            }
-            int code = p.exitValue();
-            if (code != 0) {
-                throw new RuntimeException("tesseract exited with " + code + ": " + cli);
+    private String awaitPage(Future<String> future, int pageNo) throws Exception {
+        long timeout = TimeUnit.SECONDS.toNanos(ocrTimeoutSeconds);
+        try {
+            long left = timeout;
+            if (future instanceof PageTask page) {
+                // every consumer's pages share the pool, so this one may still be queued behind other documents;
+                // the timeout starts once it has a thread
+                while (!page.started.await(1, TimeUnit.SECONDS)) {
+                    if (pageExecutor.isShutdown()) throw new IOException("OCR page executor shut down");
+                }
+                left = page.startedAt + timeout - System.nanoTime();
             }
+            return future.get(Math.max(left, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true); // no longer in the pending window, so nothing else would stop it
+            throw new IOException("OCR of page " + pageNo + " timed out after " + ocrTimeoutSeconds + "s");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            throw e;
+        }
+    }
 
-            Path outTxt = Path.of(outBase.toString() + ".txt");
-            if (!Files.exists(outTxt)) {
-                throw new IOException("tesseract did not produce output: " + outTxt);
-            }
-            return Files.readString(outTxt, StandardCharsets.UTF_8);
+    // OCR of one page; remembers when a pool thread picked it up
+    private static final class PageTask extends FutureTask<String> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile long startedAt;
 
-        } finally {
-            try { Files.deleteIfExists(tmpDir.resolve("out.txt")); } catch (Exception ignored) {}
-            try { Files.deleteIfExists(tmpDir.resolve("in.png")); } catch (Exception ignored) {}
-            try { Files.deleteIfExists(tmpDir); } catch (Exception ignored) {}
+        PageTask(Callable<String> recognize) {
+            super(recognize);
+        }
+
+        @Override
+        public void run() {
+            startedAt = System.nanoTime();
+            started.countDown();
+            super.run();
+        }
+    }
+
+    private int parallelism() {
+        return ocrParallelism > 0 ? ocrParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private int maxInFlightPages() {
+        return ocrMaxInFlightPages > 0 ? ocrMaxInFlightPages : 2 * parallelism();
+    }
+
+    private ExecutorService pageExecutor() {
+        ExecutorService ex = pageExecutor;
+        if (ex == null) {
+            synchronized (this) {
+                ex = pageExecutor;
+                if (ex == null) {
+                    int threads = parallelism();
+                    AtomicInteger seq = new AtomicInteger();
+                    ex = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), r -> {
+                                Thread t = new Thread(r, "ocr-page-" + seq.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+                    pageExecutor = ex;
+                    log.info("OCR page executor started with {} threads (max {} pages in flight per document)",
+                            threads, maxInFlightPages());
+                }
+            }
         }
+        return ex;
+    }
+
+    @PreDestroy
+    void shutdownPageExecutor() {
+        ExecutorService ex = pageExecutor;
+        if (ex != null) ex.shutdownNow();
+    }
+
+    private BufferedImage toGrayscale(BufferedImage src) {
+        BufferedImage gray = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try { g.drawImage(src, 0, 0, null); } finally { g.dispose(); }
+        return gray;
+    }
+
+    protected String recognizePage(BufferedImage gray) throws Exception {
+        // waiting for a free engine counts against the page timeout as well
+        return enginePool.recognize(gray, ocrTimeoutSeconds, TimeUnit.SECONDS);
     }
 
     private boolean isPdf(String ext) {
@@ -260,29 +421,6 @@ public class OcrWorkerService {
         throw last != null ? last : new IOException("MinIO getObject failed after retries");
     }
 
-    private void putToMinioWithRetry(String bucket, String key, byte[] bytes) throws Exception {
-        Exception last = null;
-        for (int attempt = 1; attempt <= MINIO_MAX_ATTEMPTS; attempt++) {
-            try (var bais = new ByteArrayInputStream(bytes)) {
-                minioClient.putObject(
-                        PutObjectArgs.builder()
-                                .bucket(bucket)
-                                .object(key)
-                                .contentType("text/plain; charset=utf-8")
-                                .stream(bais, bytes.length, -1)
-                                .build()
-                );
-                return;
-            } catch (Exception e) {
-                last = e;
-                log.warn("MinIO putObject attempt {}/{} failed ({}). Retrying...",
-                        attempt, MINIO_MAX_ATTEMPTS, e.toString());
-                Thread.sleep(MINIO_BACKOFF_MS * attempt);
-            }
-        }
-        throw last != null ? last : new IOException("MinIO putObject failed after retries");
-    }
-
     private boolean objectExists(String bucket, String key) {
         try {
             minioClient.statObject(
@@ -303,13 +441,21 @@ public class OcrWorkerService {
         }
     }
 
-    private String tesseractCmd() {
-        String p = System.getProperty("ocr.tesseract-cmd");
-        if (p != null && !p.isBlank()) return p;
-        if (tessCmdProp != null && !tessCmdProp.isBlank()) return tessCmdProp;
-        String env = System.getenv("TESSERACT_CMD");
-        if (env != null && !env.isBlank()) return env;
-        return "tesseract";
+    private void storeThumbnail(String bucket, String thumbKey, byte[] jpeg) {
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(thumbKey)
+                            .contentType(Thumbnails.CONTENT_TYPE)
+                            .stream(new ByteArrayInputStream(jpeg), jpeg.length, -1)
+                            .build()
+            );
+            log.info("Stored thumbnail '{}' ({} bytes)", thumbKey, jpeg.length);
+        } catch (Exception e) {
+            bucketInitializer.onWriteFailure(e);
+            log.warn("Could not store thumbnail '{}': {}", thumbKey, e.toString());
+        }
     }
 
     private void sendGenAiJob(Long documentId, String textKey) {
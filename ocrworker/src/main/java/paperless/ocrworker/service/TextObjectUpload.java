@@ -0,0 +1,127 @@
+package paperless.ocrworker.service;
+
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Streams text into a MinIO object while it is being produced.
+ * <p>
+ * Everything written to {@link #writer()} is piped into a multipart {@code putObject} of unknown size
+ * running on its own thread, so only one part (5 MiB) is buffered regardless of document length.
+ * The object only becomes visible after {@link #complete()}; closing without completing fails the
+ * upload so no truncated text is ever stored.
+ */
+class TextObjectUpload implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TextObjectUpload.class);
+
+    private static final long PART_SIZE = 5L * 1024 * 1024; // S3 minimum part size
+    private static final int PIPE_BUFFER = 64 * 1024;
+
+    private final String key;
+    private final Writer writer;
+    private final FutureTask<Void> upload;
+    private volatile boolean aborted;
+    private boolean completed;
+
+    TextObjectUpload(MinioClient minioClient, String bucket, String key) throws IOException {
+        this.key = key;
+        PipedOutputStream sink = new PipedOutputStream();
+        InputStream source = new AbortableInputStream(new PipedInputStream(sink, PIPE_BUFFER));
+        this.writer = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8));
+
+        this.upload = new FutureTask<>(() -> {
+            // closing the read side makes further writes fail fast if MinIO gives up
+            try (source) {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(key)
+                                .contentType("text/plain; charset=utf-8")
+                                .stream(source, -1, PART_SIZE)
+                                .build()
+                );
+            }
+            return null;
+        });
+        Thread t = new Thread(upload, "ocr-text-upload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    Writer writer() { return writer; }
+
+    // Flushes the remaining text and waits until MinIO has committed the object.
+    void complete() throws Exception {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // the upload side failed first; its error explains this one
+            awaitUpload();
+            throw e;
+        }
+        awaitUpload();
+        completed = true;
+    }
+
+    @Override
+    public void close() {
+        if (completed) return;
+        aborted = true;
+        upload.cancel(true);
+        try { writer.close(); } catch (IOException ignored) {}
+        log.warn("Aborted streaming upload of '{}'", key);
+    }
+
+    private void awaitUpload() throws Exception {
+        try {
+            upload.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            throw e;
+        }
+    }
+
+    // Turns EOF after an abort into an error, so MinIO never completes a partial object.
+    private class AbortableInputStream extends FilterInputStream {
+
+        AbortableInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkAborted();
+            int b = super.read();
+            checkAborted();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkAborted();
+            int n = super.read(b, off, len);
+            checkAborted();
+            return n;
+        }
+
+        private void checkAborted() throws IOException {
+            if (aborted) throw new IOException("Upload of '" + key + "' aborted");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package paperless.ocrworker.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Small page-1 previews for the document list. JPEG, because the JDK has no WebP encoder; at thumbnail size
+ * the difference is a few KB.
+ */
+final class Thumbnails {
+
+    static final String SUFFIX = ".thumb.jpg";
+    static final String CONTENT_TYPE = "image/jpeg";
+
+    private Thumbnails() {}
+
+    // Renders the first page straight at thumbnail scale (not downscaled from the OCR render), so it costs little.
+    static BufferedImage renderFirstPage(PDDocument doc, PDFRenderer renderer, int width) throws IOException {
+        PDPage page = doc.getPage(0);
+        PDRectangle box = page.getCropBox();
+        float pageWidth = page.getRotation() % 180 == 0 ? box.getWidth() : box.getHeight();
+        return renderer.renderImage(0, width / pageWidth, ImageType.RGB);
+    }
+
+    static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
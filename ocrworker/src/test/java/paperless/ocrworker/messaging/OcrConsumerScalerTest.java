@@ -0,0 +1,48 @@
+package paperless.ocrworker.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OcrConsumerScalerTest {
+
+    private static int next(int current, double cpu, long depth, int busy) {
+        return OcrConsumerScaler.nextConsumers(current, 1, 4, cpu, 0.6, 0.9, depth, busy);
+    }
+
+    @Test
+    void scalesUp_whileJobsWait_andCpuHasHeadroom() {
+        assertEquals(3, next(2, 0.3, 10, 2));
+        assertEquals(4, next(4, 0.3, 10, 4)); // capped at max
+    }
+
+    @Test
+    void scalesDown_whenCpuSaturated_evenWithBacklog() {
+        assertEquals(2, next(3, 0.95, 50, 3));
+        assertEquals(1, next(1, 0.95, 50, 1)); // never below min
+    }
+
+    @Test
+    void holds_inBetweenCpuThresholds() {
+        assertEquals(3, next(3, 0.75, 20, 3));
+    }
+
+    @Test
+    void scalesDown_whenQueueEmpty_andConsumersIdle() {
+        assertEquals(2, next(3, 0.2, 0, 1));
+        assertEquals(3, next(3, 0.2, 0, 3)); // all busy on their last jobs
+    }
+
+    @Test
+    void unknownCpu_neverScalesUp() {
+        assertEquals(2, next(2, -1, 10, 2));
+    }
+
+    @Test
+    void prefetch_followsAverageJobDuration() {
+        assertEquals(1, OcrConsumerScaler.prefetchFor(Double.NaN, 30, 10));
+        assertEquals(1, OcrConsumerScaler.prefetchFor(45, 30, 10));   // long scans: one at a time
+        assertEquals(6, OcrConsumerScaler.prefetchFor(5, 30, 10));
+        assertEquals(10, OcrConsumerScaler.prefetchFor(0.2, 30, 10)); // born-digital PDFs: capped
+    }
+}
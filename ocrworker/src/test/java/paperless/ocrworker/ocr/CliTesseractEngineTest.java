@@ -0,0 +1,151 @@
+package paperless.ocrworker.ocr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+class CliTesseractEngineTest {
+
+    @TempDir
+    Path tmp;
+
+    private Path fakeTesseract(String body) throws Exception {
+        Path script = tmp.resolve("tesseract.sh");
+        Files.writeString(script, "#!/bin/sh\n" + body + "\n", StandardCharsets.UTF_8);
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return script;
+    }
+
+    private static CliTesseractEngine engine(Path cmd, CliTesseractEngine.Mode mode, Path tmpDir, long timeoutSeconds) {
+        return new CliTesseractEngine(cmd.toString(), "eng", "6", 300, timeoutSeconds, true, mode, tmpDir);
+    }
+
+    private static BufferedImage gray(int w, int h) {
+        return new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    @Test
+    void pipeMode_streamsPgmThroughStdin_andReadsTextFromStdout() throws Exception {
+        // echoes its first two args and the image magic it received on stdin
+        Path cmd = fakeTesseract("magic=$(head -c 2)\ncat > /dev/null\necho \"$1 $2 $magic\"");
+
+        String text = engine(cmd, CliTesseractEngine.Mode.PIPE, null, 5).recognize(gray(40, 20));
+
+        assertEquals("stdin stdout P5", text.trim());
+    }
+
+    @Test
+    void fileMode_readsOutputFile_andCleansUpTempDir() throws Exception {
+        Path cmd = fakeTesseract("test -f \"$1\" && echo from-file > \"$2.txt\"");
+        Path work = Files.createDirectory(tmp.resolve("work"));
+
+        String text = engine(cmd, CliTesseractEngine.Mode.FILE, work, 5).recognize(gray(40, 20));
+
+        assertEquals("from-file", text.trim());
+        try (var left = Files.list(work)) {
+            assertEquals(0, left.count());
+        }
+    }
+
+    @Test
+    void pipeMode_killsProcess_afterTimeout() throws Exception {
+        Path cmd = fakeTesseract("exec sleep 30");
+
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> engine(cmd, CliTesseractEngine.Mode.PIPE, null, 1).recognize(gray(40, 20)));
+
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+    }
+
+    @Test
+    void pipeMode_nonZeroExit_includesStderr() throws Exception {
+        Path cmd = fakeTesseract("cat > /dev/null\necho 'bad lang' >&2\nexit 3");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> engine(cmd, CliTesseractEngine.Mode.PIPE, null, 5).recognize(gray(40, 20)));
+
+        assertTrue(e.getMessage().contains("exited with 3"), e.getMessage());
+        assertTrue(e.getMessage().contains("bad lang"), e.getMessage());
+    }
+
+    @Test
+    void writeImage_grayIsRawPgm() throws Exception {
+        BufferedImage img = gray(3, 2);
+        img.getRaster().setSample(2, 1, 0, 200);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CliTesseractEngine.writeImage(img, out);
+
+        byte[] bytes = out.toByteArray();
+        byte[] header = "P5\n3 2\n255\n".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(header.length + 6, bytes.length);
+        assertEquals("P5\n3 2\n255\n", new String(bytes, 0, header.length, StandardCharsets.US_ASCII));
+        assertEquals((byte) 200, bytes[bytes.length - 1]);
+    }
+
+    /**
+     * Pipe vs. temp files on tmpfs vs. temp files on disk, against a real tesseract.
+     * Run with {@code mvn test -Dtest=CliTesseractEngineTest -Docr.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "ocr.benchmark", matches = "true")
+    void benchmark_pipeVsFiles() throws Exception {
+        String cmd = System.getProperty("ocr.tesseract-cmd", "tesseract");
+        int pages = Integer.getInteger("ocr.benchmark.pages", 20);
+        BufferedImage page = textPage();
+
+        Path shm = Path.of("/dev/shm");
+        Path disk = Files.createDirectories(Path.of(System.getProperty("ocr.benchmark.diskDir", "target/ocr-bench")));
+
+        run("pipe", new CliTesseractEngine(cmd, "eng", "6", 300, 60, true, CliTesseractEngine.Mode.PIPE, null), page, pages);
+        if (Files.isDirectory(shm)) {
+            run("file/tmpfs", new CliTesseractEngine(cmd, "eng", "6", 300, 60, true, CliTesseractEngine.Mode.FILE, shm), page, pages);
+        }
+        run("file/disk", new CliTesseractEngine(cmd, "eng", "6", 300, 60, true, CliTesseractEngine.Mode.FILE, disk), page, pages);
+    }
+
+    private static void run(String label, CliTesseractEngine engine, BufferedImage page, int pages) throws Exception {
+        engine.recognize(page); // warm page cache for the binary and traineddata
+        long start = System.nanoTime();
+        for (int i = 0; i < pages; i++) {
+            assertFalse(engine.recognize(page).isBlank());
+        }
+        double msPerPage = (System.nanoTime() - start) / 1_000_000.0 / pages;
+        System.out.printf("%-12s %8.1f ms/page (%d pages)%n", label, msPerPage, pages);
+    }
+
+    // A4 at 300 dpi with a few lines of text
+    private static BufferedImage textPage() {
+        BufferedImage img = gray(2480, 3508);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, 48));
+            for (int line = 0; line < 40; line++) {
+                g.drawString("Invoice " + line + " - the quick brown fox jumps over the lazy dog", 150, 200 + line * 80);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
@@ -0,0 +1,110 @@
+package paperless.ocrworker.ocr;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the real libtesseract and its English model; skipped where either is missing.
+ * {@code -Docr.tessdata-path=...} points it at a non-default tessdata directory.
+ */
+class NativeTesseractEngineTest {
+
+    @BeforeAll
+    static void requireLibtesseract() {
+        try {
+            NativeTesseractEngine.libraryVersion();
+        } catch (LinkageError e) {
+            Assumptions.abort("libtesseract not available: " + e);
+        }
+    }
+
+    private static NativeTesseractEngine engine(Duration timeout) {
+        try {
+            return new NativeTesseractEngine(System.getProperty("ocr.tessdata-path"), "eng", 6, 300, timeout);
+        } catch (IOException e) {
+            Assumptions.abort("tesseract 'eng' data not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Test
+    void recognize_readsRenderedText() throws Exception {
+        // an odd width, so rows are not padded to a multiple of 4
+        try (NativeTesseractEngine engine = engine(Duration.ofSeconds(30))) {
+            String text = engine.recognize(textImage(1201, 1, BufferedImage.TYPE_BYTE_GRAY));
+
+            assertTrue(text.contains("INVOICE 4711"), text);
+        }
+    }
+
+    @Test
+    void recognize_usesTheSubimageRegion_andConvertsColour() throws Exception {
+        BufferedImage twoLines = textImage(1200, 2, BufferedImage.TYPE_BYTE_GRAY);
+        BufferedImage secondLine = twoLines.getSubimage(0, 100, 1200, 100);
+
+        try (NativeTesseractEngine engine = engine(Duration.ofSeconds(30))) {
+            String sub = engine.recognize(secondLine);
+            String rgb = engine.recognize(textImage(1200, 1, BufferedImage.TYPE_INT_RGB));
+
+            assertTrue(sub.contains("INVOICE 4712"), sub);
+            assertFalse(sub.contains("4711"), sub);
+            assertTrue(rgb.contains("INVOICE 4711"), rgb);
+        }
+    }
+
+    @Test
+    void recognize_failsAfterTheDeadline_andTheEngineStaysUsable() throws Exception {
+        try (NativeTesseractEngine engine = engine(Duration.ofMillis(1))) {
+            IOException e = assertThrows(IOException.class, () -> engine.recognize(textImage(1200, 30, BufferedImage.TYPE_BYTE_GRAY)));
+
+            assertFalse(e instanceof InterruptedIOException);
+            assertTrue(e.getMessage().contains("within 1 ms"), e.getMessage());
+            assertTrue(engine.isHealthy());
+        }
+    }
+
+    @Test
+    void recognize_stopsWhenTheThreadIsInterrupted() throws Exception {
+        try (NativeTesseractEngine engine = engine(Duration.ofSeconds(30))) {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(InterruptedIOException.class, () -> engine.recognize(textImage(1200, 30, BufferedImage.TYPE_BYTE_GRAY)));
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+
+            String text = engine.recognize(textImage(1200, 1, BufferedImage.TYPE_BYTE_GRAY));
+            assertTrue(text.contains("INVOICE 4711"), text);
+        }
+    }
+
+    // black lines "INVOICE 4711", "INVOICE 4712", ... on white, 100 px apart
+    private static BufferedImage textImage(int width, int lines, int type) {
+        BufferedImage img = new BufferedImage(width, 100 * lines, type);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 48));
+            for (int line = 0; line < lines; line++) {
+                g.drawString("INVOICE " + (4711 + line), 40, 70 + line * 100);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
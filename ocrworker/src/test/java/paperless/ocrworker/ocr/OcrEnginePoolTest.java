@@ -0,0 +1,135 @@
+package paperless.ocrworker.ocr;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OcrEnginePoolTest {
+
+    private static final BufferedImage IMG = new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY);
+
+    private static class FakeEngine implements OcrEngine {
+        final int id;
+        boolean healthy = true;
+        boolean failNext;
+        boolean closed;
+        CountDownLatch block;
+
+        FakeEngine(int id) { this.id = id; }
+
+        @Override
+        public String recognize(BufferedImage img) throws Exception {
+            if (block != null) block.await();
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("boom");
+            }
+            return "engine-" + id;
+        }
+
+        @Override public boolean isHealthy() { return healthy; }
+        @Override public void close() { closed = true; }
+    }
+
+    private final List<FakeEngine> created = new ArrayList<>();
+
+    private OcrEnginePool pool(int size, int maxPages) {
+        AtomicInteger seq = new AtomicInteger();
+        return new OcrEnginePool(() -> {
+            FakeEngine e = new FakeEngine(seq.incrementAndGet());
+            created.add(e);
+            return e;
+        }, size, maxPages, 3600);
+    }
+
+    @Test
+    void reusesWarmEngine_insteadOfCreatingOnePerPage() throws Exception {
+        OcrEnginePool pool = pool(2, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("engine-1", pool.recognize(IMG, 1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, created.size());
+        assertEquals(1, pool.idleCount());
+    }
+
+    @Test
+    void recyclesEngine_afterMaxPages() throws Exception {
+        OcrEnginePool pool = pool(1, 3);
+
+        for (int i = 0; i < 3; i++) pool.recognize(IMG, 1, TimeUnit.SECONDS);
+        assertTrue(created.get(0).closed);
+
+        assertEquals("engine-2", pool.recognize(IMG, 1, TimeUnit.SECONDS));
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    void discardsEngine_thatFailsAndIsUnhealthy() throws Exception {
+        OcrEnginePool pool = pool(1, 100);
+        pool.recognize(IMG, 1, TimeUnit.SECONDS);
+
+        FakeEngine first = created.get(0);
+        first.failNext = true;
+        first.healthy = false;
+        assertThrows(IllegalStateException.class, () -> pool.recognize(IMG, 1, TimeUnit.SECONDS));
+        assertTrue(first.closed);
+
+        assertEquals("engine-2", pool.recognize(IMG, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keepsEngine_whenFailureLeavesItHealthy() throws Exception {
+        OcrEnginePool pool = pool(1, 100);
+        pool.recognize(IMG, 1, TimeUnit.SECONDS);
+        created.get(0).failNext = true;
+
+        assertThrows(IllegalStateException.class, () -> pool.recognize(IMG, 1, TimeUnit.SECONDS));
+        assertEquals("engine-1", pool.recognize(IMG, 1, TimeUnit.SECONDS));
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    void poolSize_boundsConcurrentEngines() throws Exception {
+        OcrEnginePool pool = pool(1, 100);
+        pool.warmUp();
+        CountDownLatch release = new CountDownLatch(1);
+        created.get(0).block = release;
+
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> busy = ex.submit(() -> pool.recognize(IMG, 1, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            assertThrows(TimeoutException.class, () -> pool.recognize(IMG, 50, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals("engine-1", busy.get(1, TimeUnit.SECONDS));
+            assertEquals(1, created.size());
+        } finally {
+            ex.shutdownNow();
+        }
+    }
+
+    @Test
+    void close_closesIdleEngines() throws Exception {
+        OcrEnginePool pool = pool(2, 100);
+        pool.warmUp();
+        assertEquals(2, created.size());
+
+        pool.close();
+        assertTrue(created.stream().allMatch(e -> e.closed));
+        assertThrows(IllegalStateException.class, () -> pool.recognize(IMG, 1, TimeUnit.SECONDS));
+    }
+}
@@ -4,22 +4,50 @@ import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.StatObjectArgs;
 import io.minio.StatObjectResponse;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
+import paperless.ocrworker.config.MinioBucketInitializer;
 import paperless.ocrworker.config.MinioConfig;
 import paperless.ocrworker.messaging.OcrResultProducer;
+import paperless.ocrworker.ocr.OcrEnginePool;
 import paperless.paperless.messaging.OcrJobMessage;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,6 +59,7 @@ class OcrWorkerServiceTest {
     private OcrResultProducer resultProducer;
 
     private OcrWorkerService service;
+    private final Map<String, String> stored = new ConcurrentHashMap<>();
 
     @BeforeEach
     void setup() {
@@ -38,10 +67,21 @@ class OcrWorkerServiceTest {
         rabbitTemplate = mock(RabbitTemplate.class, withSettings().lenient());
         resultProducer = mock(OcrResultProducer.class, withSettings().lenient());
 
+        // drain the streamed .txt like MinIO would, so the test can see what was stored
+        try {
+            doAnswer(inv -> {
+                PutObjectArgs args = inv.getArgument(0);
+                stored.put(args.object(), new String(args.stream().readAllBytes(), StandardCharsets.UTF_8));
+                return null;
+            }).when(minio).putObject(any(PutObjectArgs.class));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
         minioConfig = new MinioConfig();
         ReflectionTestUtils.setField(minioConfig, "bucketName", "documents");
 
-        service = spy(new OcrWorkerService(minio, minioConfig, rabbitTemplate, resultProducer));
+        service = spy(new OcrWorkerService(minio, minioConfig, mock(MinioBucketInitializer.class), rabbitTemplate, resultProducer, mock(OcrEnginePool.class)));
 
         ReflectionTestUtils.setField(service, "storeTextToMinio", true);
     }
@@ -59,14 +99,38 @@ class OcrWorkerServiceTest {
         InputStream pdfBytes = new ByteArrayInputStream("%PDF-1.4\n%".getBytes());
         doReturn(pdfBytes).when(service).fetchFromMinio(eq("documents"), eq("folder/doc.pdf"));
 
-        doReturn("HELLO FROM OCR").when(service).ocrPdf(any(Path.class));
+        doAnswer(inv -> {
+            Writer out = inv.getArgument(1);
+            out.write("HELLO FROM OCR");
+            return new OcrOutcome("HELLO FROM OCR", 1, 0);
+        }).when(service).ocrPdf(any(Path.class), any(Writer.class));
 
         service.process(m);
 
         ArgumentCaptor<PutObjectArgs> cap = ArgumentCaptor.forClass(PutObjectArgs.class);
         verify(minio, times(1)).putObject(cap.capture());
         assertEquals("folder/doc.pdf.txt", cap.getValue().object());
+        assertEquals("HELLO FROM OCR", stored.get("folder/doc.pdf.txt"));
+
+        verify(resultProducer, times(1)).send(any());
+    }
+
+    @Test
+    void process_pdf_storesThumbnailNextToOriginal() throws Exception {
+        OcrJobMessage m = msg(4L, "doc.pdf", "folder/doc.pdf");
+
+        doThrow(new RuntimeException("stat fail")).when(minio).statObject(any(StatObjectArgs.class));
+        doReturn(new ByteArrayInputStream("%PDF-1.4\n%".getBytes())).when(service).fetchFromMinio(eq("documents"), eq("folder/doc.pdf"));
+        doReturn(new OcrOutcome("TEXT", 1, 0, new byte[]{1, 2, 3}))
+                .when(service).ocrPdf(any(Path.class), any(Writer.class));
+
+        service.process(m);
 
+        ArgumentCaptor<PutObjectArgs> cap = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minio, times(2)).putObject(cap.capture());
+        PutObjectArgs thumb = cap.getAllValues().get(1);
+        assertEquals("folder/doc.pdf.thumb.jpg", thumb.object());
+        assertEquals("image/jpeg", thumb.contentType());
         verify(resultProducer, times(1)).send(any());
     }
 
@@ -86,6 +150,7 @@ class OcrWorkerServiceTest {
         ArgumentCaptor<PutObjectArgs> cap = ArgumentCaptor.forClass(PutObjectArgs.class);
         verify(minio, times(1)).putObject(cap.capture());
         assertEquals("inbox/scan.png.txt", cap.getValue().object());
+        assertEquals("TEXT FROM IMAGE", stored.get("inbox/scan.png.txt"));
 
         verify(resultProducer, times(1)).send(any());
     }
@@ -99,10 +164,271 @@ class OcrWorkerServiceTest {
         assertDoesNotThrow(() -> service.process(m));
 
         verify(service, never()).fetchFromMinio(anyString(), anyString());
-        verify(service, never()).ocrPdf(any());
+        verify(service, never()).ocrPdf(any(), any());
         verify(service, never()).ocrImage(any());
 
         verify(minio, never()).putObject(any(PutObjectArgs.class));
         verify(resultProducer, times(1)).send(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void ocrPdf_ocrsPagesInParallel_andKeepsPageOrder() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 4);
+        ReflectionTestUtils.setField(service, "ocrMaxInFlightPages", 2);
+
+        // page i is (100 + i) points wide -> the rendered width identifies the page
+        Path pdf = Files.createTempFile("pages_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < 5; i++) {
+                doc.addPage(new PDPage(new PDRectangle(100 + i, 100)));
+            }
+            doc.save(pdf.toFile());
+        }
+
+        // earlier pages finish last, so out-of-order completion would show up in the text
+        doAnswer(inv -> {
+            BufferedImage img = inv.getArgument(0);
+            int page = img.getWidth() - 100;
+            Thread.sleep(50L * (5 - page));
+            return "page-" + page;
+        }).when(service).recognizePage(any(BufferedImage.class));
+
+        try {
+            StringWriter out = new StringWriter();
+            OcrOutcome outcome = service.ocrPdf(pdf, out);
+            assertEquals("page-0\n\fpage-1\n\fpage-2\n\fpage-3\n\fpage-4\n", out.toString());
+            assertEquals(5, outcome.getOcrPages());
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void ocrPdf_pageTimeout_startsWhenThePageGetsAThread_notWhileItIsQueued() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 1);
+
+        Path pdf = Files.createTempFile("queued_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage(new PDRectangle(100, 100)));
+            doc.save(pdf.toFile());
+        }
+        doReturn("page-0").when(service).recognizePage(any(BufferedImage.class));
+
+        // another consumer's page holds the only thread for longer than the page timeout
+        ExecutorService pool = ReflectionTestUtils.invokeMethod(service, "pageExecutor");
+        pool.execute(() -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        try {
+            StringWriter out = new StringWriter();
+            service.ocrPdf(pdf, out);
+            assertEquals("page-0\n", out.toString());
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void ocrPdf_pageRunningLongerThanTheTimeout_failsTheRun_andIsInterrupted() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 1);
+
+        Path pdf = Files.createTempFile("slow_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage(new PDRectangle(100, 100)));
+            doc.save(pdf.toFile());
+        }
+        CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(inv -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "too late";
+        }).when(service).recognizePage(any(BufferedImage.class));
+
+        try {
+            IOException e = assertThrows(IOException.class, () -> service.ocrPdf(pdf, new StringWriter()));
+            assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void ocrPdf_takesTextLayer_andOnlyOcrsImagePages() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 2);
+        ReflectionTestUtils.setField(service, "textLayerMinChars", 20);
+
+        // page 1 is born-digital, page 2 has no text layer (stands in for a scan)
+        Path pdf = Files.createTempFile("mixed_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            PDPage digital = new PDPage(PDRectangle.A4);
+            doc.addPage(digital);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, digital)) {
+                cs.beginText();
+                cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                cs.newLineAtOffset(50, 700);
+                cs.showText("Invoice 4711 for consulting services rendered");
+                cs.endText();
+            }
+            doc.addPage(new PDPage(PDRectangle.A4));
+            doc.save(pdf.toFile());
+        }
+
+        doReturn("SCANNED PAGE").when(service).recognizePage(any(BufferedImage.class));
+
+        try {
+            StringWriter out = new StringWriter();
+            OcrOutcome outcome = service.ocrPdf(pdf, out);
+            assertEquals(1, outcome.getOcrPages());
+            assertEquals(1, outcome.getExtractedPages());
+            assertEquals("Invoice 4711 for consulting services rendered\n\fSCANNED PAGE\n", out.toString());
+            verify(service, times(1)).recognizePage(any(BufferedImage.class));
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void ocrPdf_rendersPageOneThumbnail_atConfiguredWidth() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 1);
+        ReflectionTestUtils.setField(service, "thumbnailWidth", 160);
+        ReflectionTestUtils.setField(service, "thumbnailQuality", 0.8f);
+
+        Path pdf = Files.createTempFile("thumb_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage(PDRectangle.A4));
+            doc.addPage(new PDPage(PDRectangle.A4));
+            doc.save(pdf.toFile());
+        }
+        doReturn("PAGE").when(service).recognizePage(any(BufferedImage.class));
+
+        try {
+            OcrOutcome outcome = service.ocrPdf(pdf, new StringWriter());
+            BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(outcome.getThumbnail()));
+            assertEquals(160, thumb.getWidth());
+            // A4 aspect ratio is kept
+            assertEquals(226, thumb.getHeight(), 1);
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void ocrPdf_streamsAllPages_withBoundedWindow() throws Exception {
+        ReflectionTestUtils.setField(service, "ocrDpi", 72);
+        ReflectionTestUtils.setField(service, "ocrTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(service, "ocrParallelism", 2);
+        ReflectionTestUtils.setField(service, "ocrMaxInFlightPages", 3);
+
+        int pageCount = 40;
+        Path pdf = Files.createTempFile("long_", ".pdf");
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pageCount; i++) {
+                doc.addPage(new PDPage(new PDRectangle(100 + i, 100)));
+            }
+            doc.save(pdf.toFile());
+        }
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        doAnswer(inv -> {
+            maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                BufferedImage img = inv.getArgument(0);
+                return "p" + (img.getWidth() - 100);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }).when(service).recognizePage(any(BufferedImage.class));
+
+        // counts pages as they reach the writer, i.e. before the document is finished
+        List<Integer> writtenAt = new ArrayList<>();
+        StringWriter out = new StringWriter() {
+            @Override
+            public void write(String str) {
+                super.write(str);
+                writtenAt.add(writtenAt.size());
+            }
+        };
+
+        try {
+            OcrOutcome outcome = service.ocrPdf(pdf, out);
+            assertEquals(pageCount, outcome.getOcrPages());
+            String[] pages = out.toString().split("\f");
+            assertEquals(pageCount, pages.length);
+            assertEquals("p39\n", pages[pageCount - 1]);
+            assertEquals(pageCount, writtenAt.size());
+            assertTrue(maxSeen.get() <= 2);
+        } finally {
+            service.shutdownPageExecutor();
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    void process_ocrFailure_abortsUpload_insteadOfStoringPartialText() throws Exception {
+        OcrJobMessage m = msg(4L, "doc.pdf", "folder/fail.pdf");
+
+        doThrow(new RuntimeException("stat fail")).when(minio).statObject(any(StatObjectArgs.class));
+        doReturn(new ByteArrayInputStream("%PDF-1.4\n%".getBytes())).when(service).fetchFromMinio(anyString(), anyString());
+
+        CountDownLatch putStarted = new CountDownLatch(1);
+        CountDownLatch putEnded = new CountDownLatch(1);
+        AtomicBoolean storedCleanly = new AtomicBoolean();
+        AtomicReference<Exception> putFailure = new AtomicReference<>();
+        doAnswer(inv -> {
+            putStarted.countDown();
+            try {
+                PutObjectArgs args = inv.getArgument(0);
+                args.stream().readAllBytes();
+                storedCleanly.set(true);
+            } catch (Exception e) {
+                putFailure.set(e);
+                throw e;
+            } finally {
+                putEnded.countDown();
+            }
+            return null;
+        }).when(minio).putObject(any(PutObjectArgs.class));
+
+        doAnswer(inv -> {
+            Writer out = inv.getArgument(1);
+            out.write("page one");
+            out.flush();
+            // fail only once MinIO is reading, so the abort has to stop a running multipart upload
+            assertTrue(putStarted.await(5, TimeUnit.SECONDS));
+            throw new IOException("tesseract crashed on page 2");
+        }).when(service).ocrPdf(any(Path.class), any(Writer.class));
+
+        service.process(m);
+
+        verify(resultProducer, never()).send(any());
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        // the stream MinIO reads fails instead of ending in a clean EOF, so no partial object is committed
+        assertTrue(putEnded.await(5, TimeUnit.SECONDS));
+        assertFalse(storedCleanly.get());
+        assertTrue(putFailure.get() instanceof IOException, () -> "put ended with " + putFailure.get());
+    }
+}
@@ -6,8 +6,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import paperless.ocrworker.config.MinioBucketInitializer;
 import paperless.ocrworker.config.MinioConfig;
+import paperless.ocrworker.config.OcrEngineConfig;
 import paperless.ocrworker.messaging.OcrResultProducer;
+import paperless.ocrworker.ocr.OcrEnginePool;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -18,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class OcrWorkerServiceLiteTest {
 
     private OcrWorkerService svc;
+    private OcrEngineConfig engineConfig;
 
     // reflect private methods we want to probe
     private Method mTesseractCmd;
@@ -32,9 +36,10 @@ class OcrWorkerServiceLiteTest {
         RabbitTemplate rabbitTemplate = Mockito.mock(RabbitTemplate.class);
         OcrResultProducer producer = Mockito.mock(OcrResultProducer.class);
 
-        svc = new OcrWorkerService(minio, cfg, rabbitTemplate, producer);
+        svc = new OcrWorkerService(minio, cfg, Mockito.mock(MinioBucketInitializer.class), rabbitTemplate, producer, Mockito.mock(OcrEnginePool.class));
+        engineConfig = new OcrEngineConfig();
 
-        mTesseractCmd = OcrWorkerService.class.getDeclaredMethod("tesseractCmd");
+        mTesseractCmd = OcrEngineConfig.class.getDeclaredMethod("tesseractCmd");
         mTesseractCmd.setAccessible(true);
 
         mGetExt = OcrWorkerService.class.getDeclaredMethod("getExt", String.class);
@@ -55,7 +60,7 @@ class OcrWorkerServiceLiteTest {
     @Test
     void tesseractCmd_usesSystemProperty_whenProvided() throws Exception {
         System.setProperty("ocr.tesseract-cmd", "C:\\dummy\\tess.exe");
-        String resolved = (String) mTesseractCmd.invoke(svc);
+        String resolved = (String) mTesseractCmd.invoke(engineConfig);
         assertEquals("C:\\dummy\\tess.exe", resolved);
     }
 
@@ -0,0 +1,22 @@
+package paperless.paperless.bl.model;
+
+import java.util.List;
+
+/**
+ * One page of documents, newest first. {@code nextCursor} is the opaque cursor of the following page,
+ * or {@code null} if this is the last one.
+ */
+public class BlDocumentPage {
+
+    private final List<BlDocument> items;
+    private final String nextCursor;
+
+    public BlDocumentPage(List<BlDocument> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BlDocument> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+}
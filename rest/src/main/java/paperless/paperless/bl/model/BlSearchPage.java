@@ -0,0 +1,32 @@
+package paperless.paperless.bl.model;
+
+import paperless.paperless.model.SearchDocumentResult;
+
+import java.util.List;
+
+/**
+ * One page of search results with the total hit count (a lower bound if {@code totalExact} is false)
+ * and the opaque cursor of the next page, {@code null} on the last one.
+ */
+public class BlSearchPage {
+
+    private final List<SearchDocumentResult> items;
+    private final long total;
+    private final boolean totalExact;
+    private final String nextCursor;
+
+    public BlSearchPage(List<SearchDocumentResult> items, long total, boolean totalExact, String nextCursor) {
+        this.items = items;
+        this.total = total;
+        this.totalExact = totalExact;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SearchDocumentResult> getItems() { return items; }
+
+    public long getTotal() { return total; }
+
+    public boolean isTotalExact() { return totalExact; }
+
+    public String getNextCursor() { return nextCursor; }
+}
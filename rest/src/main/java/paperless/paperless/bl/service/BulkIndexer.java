@@ -0,0 +1,250 @@
+package paperless.paperless.bl.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import paperless.paperless.dal.repository.DocumentRepository;
+import paperless.paperless.dal.repository.DocumentTagRepository;
+import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.BulkIndexResult;
+import paperless.paperless.search.dto.IndexedDocument;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects documents and sends them to Elasticsearch in {@code _bulk} batches.
+ * <p>
+ * A batch is flushed when it reaches {@code search.bulk.maxActions} documents, roughly
+ * {@code search.bulk.maxBytes} of payload, or when its oldest document has waited
+ * {@code search.bulk.flushIntervalMs}. Only documents ES accepted get their {@code ocrIndexedAt} set;
+ * failed items keep it null so they show up as not indexed, and {@link UnindexedDocumentSweeper} queues them again.
+ * A failed bulk request is retried with exponential backoff until ES is back.
+ * <p>
+ * Queued and in-flight documents are bounded by their estimated size ({@code search.bulk.queueMaxBytes}), not by
+ * count, since each one carries its full OCR text: when ES falls behind, {@link #add} blocks the caller instead of
+ * buffering without limit.
+ */
+@Component
+public class BulkIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkIndexer.class);
+
+    // per-document overhead for ids, metadata and the action line
+    private static final int DOC_OVERHEAD_BYTES = 256;
+    private static final long INITIAL_RETRY_BACKOFF_MS = 500;
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final SearchIndexService searchIndexService;
+    private final DocumentRepository documentRepository;
+    private final DocumentTagRepository documentTagRepository;
+    private final int maxActions;
+    private final long maxBytes;
+    private final long flushIntervalMs;
+    private final BlockingQueue<IndexedDocument> queue = new LinkedBlockingQueue<>();
+    // estimated bytes of queued and in-flight documents; taken by enqueue, returned once their batch is done
+    private final Semaphore queueBytes;
+    private final int queueMaxBytes;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public BulkIndexer(SearchIndexService searchIndexService,
+                       DocumentRepository documentRepository,
+                       DocumentTagRepository documentTagRepository,
+                       @Value("${search.bulk.maxActions:500}") int maxActions,
+                       @Value("${search.bulk.maxBytes:5242880}") long maxBytes,
+                       @Value("${search.bulk.flushIntervalMs:1000}") long flushIntervalMs,
+                       @Value("${search.bulk.queueMaxBytes:67108864}") int queueMaxBytes) {
+        if (maxActions < 1) throw new IllegalArgumentException("search.bulk.maxActions must be >= 1");
+        if (queueMaxBytes < 1) throw new IllegalArgumentException("search.bulk.queueMaxBytes must be >= 1");
+        this.searchIndexService = searchIndexService;
+        this.documentRepository = documentRepository;
+        this.documentTagRepository = documentTagRepository;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queueMaxBytes = queueMaxBytes;
+        this.queueBytes = new Semaphore(queueMaxBytes);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = new Thread(this::runLoop, "es-bulk-indexer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        flushPending();
+    }
+
+    /**
+     * Queues a document for the next batch. Inside a transaction it is only queued after commit,
+     * so the flusher never marks a row whose OCR result was rolled back.
+     */
+    public void add(IndexedDocument doc) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { enqueue(doc); }
+            });
+        } else {
+            enqueue(doc);
+        }
+    }
+
+    private void enqueue(IndexedDocument doc) {
+        try {
+            queueBytes.acquire(permits(doc));
+            queue.add(doc);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // ocrIndexedAt stays null, so the sweeper picks it up later
+            log.warn("Interrupted while queueing documentId={} for indexing", doc.getId());
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                List<IndexedDocument> batch = nextBatch();
+                if (!batch.isEmpty()) flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Bulk indexer loop failed: {}", e.toString(), e);
+            }
+        }
+    }
+
+    // Waits for the first document, then collects until the batch is full or the interval has passed.
+    private List<IndexedDocument> nextBatch() throws InterruptedException {
+        List<IndexedDocument> batch = new ArrayList<>();
+        IndexedDocument first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) return batch;
+
+        batch.add(first);
+        long bytes = estimateBytes(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < maxActions && bytes < maxBytes) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+            IndexedDocument next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+            bytes += estimateBytes(next);
+        }
+        return batch;
+    }
+
+    // Sends everything still queued, in batches; used on shutdown and by tests.
+    void flushPending() {
+        List<IndexedDocument> batch = new ArrayList<>();
+        long bytes = 0;
+        IndexedDocument doc;
+        while ((doc = queue.poll()) != null) {
+            batch.add(doc);
+            bytes += estimateBytes(doc);
+            if (batch.size() >= maxActions || bytes >= maxBytes) {
+                flush(batch);
+                batch = new ArrayList<>();
+                bytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) flush(batch);
+    }
+
+    private void flush(List<IndexedDocument> batch) {
+        try {
+            BulkIndexResult result = sendWithRetry(batch);
+            if (result == null) return;
+
+            result.getFailed().forEach((id, reason) ->
+                    log.error("Failed to index documentId={} into Elasticsearch: {}", id, reason));
+
+            if (!result.getSucceeded().isEmpty()) {
+                try {
+                    documentRepository.markIndexed(result.getSucceeded(), OffsetDateTime.now());
+                } catch (Exception e) {
+                    log.error("Indexed {} document(s) but could not set ocrIndexedAt: {}",
+                            result.getSucceeded().size(), e.toString(), e);
+                }
+            }
+        } finally {
+            int permits = 0;
+            for (IndexedDocument doc : batch) permits += permits(doc);
+            queueBytes.release(permits);
+        }
+    }
+
+    // Retries until ES answers; on shutdown (or interrupt) gives up and leaves the batch to the sweeper.
+    private BulkIndexResult sendWithRetry(List<IndexedDocument> batch) {
+        long backoff = INITIAL_RETRY_BACKOFF_MS;
+        while (true) {
+            try {
+                refreshTags(batch);
+                return searchIndexService.bulkIndex(batch);
+            } catch (Exception e) {
+                if (!running) {
+                    log.error("Bulk request with {} document(s) failed, leaving it to the sweeper: {}",
+                            batch.size(), e.toString());
+                    return null;
+                }
+                log.error("Bulk request with {} document(s) failed, retrying in {} ms: {}",
+                        batch.size(), backoff, e.toString());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    // Tags edited while a document waited here were sent as partial updates that found nothing to update yet.
+    private void refreshTags(List<IndexedDocument> batch) {
+        List<Long> ids = batch.stream().map(IndexedDocument::getId).toList();
+        try {
+            Map<Long, List<String>> tags = documentTagRepository.findTagNamesGroupedByDocumentId(ids);
+            batch.forEach(doc -> doc.setTags(tags.getOrDefault(doc.getId(), List.of())));
+        } catch (Exception e) {
+            log.warn("Could not reload tags of {} queued document(s), sending the queued ones: {}",
+                    ids.size(), e.toString());
+        }
+    }
+
+    // a document larger than the whole budget takes all of it instead of blocking forever
+    private int permits(IndexedDocument doc) {
+        return (int) Math.min(estimateBytes(doc), queueMaxBytes);
+    }
+
+    private static long estimateBytes(IndexedDocument doc) {
+        // chars, not UTF-8 bytes; close enough to keep requests well under the http.max_content_length
+        long len = DOC_OVERHEAD_BYTES;
+        if (doc.getContent() != null) len += doc.getContent().length();
+        if (doc.getFilename() != null) len += doc.getFilename().length();
+        return len;
+    }
+}
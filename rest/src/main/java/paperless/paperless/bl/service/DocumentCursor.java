@@ -0,0 +1,43 @@
+package paperless.paperless.bl.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the document list: the (uploadedAt, id) of the last document of a page,
+ * base64url-encoded so clients treat it as a token and not as something to build themselves.
+ */
+final class DocumentCursor {
+
+    private final OffsetDateTime uploadedAt;
+    private final long id;
+
+    DocumentCursor(OffsetDateTime uploadedAt, long id) {
+        this.uploadedAt = uploadedAt;
+        this.id = id;
+    }
+
+    OffsetDateTime uploadedAt() { return uploadedAt; }
+
+    long id() { return id; }
+
+    String encode() {
+        String raw = uploadedAt.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static DocumentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            Instant at = Instant.parse(raw.substring(0, sep));
+            long id = Long.parseLong(raw.substring(sep + 1));
+            return new DocumentCursor(at.atOffset(ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
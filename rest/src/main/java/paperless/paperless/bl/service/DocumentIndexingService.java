@@ -1,25 +1,20 @@
 package paperless.paperless.bl.service;
 
-import co.elastic.clients.elasticsearch._types.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import paperless.paperless.dal.entity.DocumentEntity;
-import paperless.paperless.dal.entity.DocumentTagEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
 import paperless.paperless.dal.repository.DocumentTagRepository;
 import paperless.paperless.infrastructure.FileStorageService;
 import paperless.paperless.messaging.OcrResultMessage;
-import paperless.paperless.search.SearchIndexService;
 import paperless.paperless.search.dto.IndexedDocument;
 
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 public class DocumentIndexingService {
@@ -29,16 +24,16 @@ public class DocumentIndexingService {
     private final DocumentRepository documentRepository;
     private final DocumentTagRepository documentTagRepository;
     private final FileStorageService fileStorageService;
-    private final SearchIndexService searchIndexService;
+    private final BulkIndexer bulkIndexer;
 
     public DocumentIndexingService(DocumentRepository documentRepository,
                                    DocumentTagRepository documentTagRepository,
                                    FileStorageService fileStorageService,
-                                   SearchIndexService searchIndexService) {
+                                   BulkIndexer bulkIndexer) {
         this.documentRepository = documentRepository;
         this.documentTagRepository = documentTagRepository;
         this.fileStorageService = fileStorageService;
-        this.searchIndexService = searchIndexService;
+        this.bulkIndexer = bulkIndexer;
     }
 
     @Transactional
@@ -68,94 +63,50 @@ public class DocumentIndexingService {
             return;
         }
 
-        List<String> tags = loadTagNames(doc.getId());
+        doc.setOcrTextKey(msg.getTextKey());
+        doc.setOcrProcessedAt(msg.getProcessedAt() != null ? msg.getProcessedAt() : OffsetDateTime.now());
+        documentRepository.save(doc);
 
-        IndexedDocument indexed = new IndexedDocument();
-        indexed.setId(doc.getId());
-        indexed.setFilename(doc.getFilename());
-        indexed.setUploadedAt(doc.getUploadedAt());
-        indexed.setContent(ocrText);
-        indexed.setTags(tags);
-
-        try {
-            Result r = searchIndexService.indexDocument(indexed);
-            log.info("Indexed documentId={} into Elasticsearch (result={})", doc.getId(), r);
-        } catch (Exception e) {
-            log.error("Failed to index documentId={} into Elasticsearch: {}", doc.getId(), e.toString(), e);
-            return;
-        }
-        try {
-            doc.setOcrTextKey(msg.getTextKey());
-            doc.setOcrProcessedAt(msg.getProcessedAt() != null ? msg.getProcessedAt() : OffsetDateTime.now());
-            doc.setOcrIndexedAt(OffsetDateTime.now());
-            documentRepository.save(doc);
-        } catch (Exception ignored) {
-        }
+        // ocrIndexedAt is set by the bulk indexer once ES has accepted the document
+        bulkIndexer.add(toIndexed(doc, ocrText));
     }
 
-    @Transactional
-    public void reindexDocument(Long documentId) {
-        if (documentId == null) return;
-
-        DocumentEntity doc = documentRepository.findById(documentId).orElse(null);
-        if (doc == null) return;
-
-        // Only reindex when we already have OCR text stored
-        String textKey;
-        try {
-            textKey = doc.getOcrTextKey();
-        } catch (Exception e) {
-            return;
+    /**
+     * Queues documents with stored OCR text that were never confirmed by ES, with ids above {@code afterId}.
+     * Returns the highest id looked at, or 0 once the end was reached.
+     */
+    @Transactional(readOnly = true)
+    public long requeueUnindexed(OffsetDateTime processedBefore, long afterId, int limit) {
+        List<DocumentEntity> docs = documentRepository.findUnindexed(processedBefore, afterId, PageRequest.of(0, limit));
+        for (DocumentEntity doc : docs) {
+            try {
+                byte[] bytes = fileStorageService.downloadFile(doc.getOcrTextKey());
+                bulkIndexer.add(toIndexed(doc, new String(bytes, StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.warn("Cannot re-queue documentId={} for indexing, OCR text '{}' unreadable: {}",
+                        doc.getId(), doc.getOcrTextKey(), e.toString());
+            }
         }
+        if (!docs.isEmpty()) log.info("Re-queued {} unindexed document(s) for indexing", docs.size());
+        return docs.size() < limit ? 0 : docs.get(docs.size() - 1).getId();
+    }
 
-        if (textKey == null || textKey.isBlank()) {
-            return;
-        }
-
-        String ocrText;
-        try {
-            byte[] bytes = fileStorageService.downloadFile(textKey);
-            ocrText = new String(bytes, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            log.warn("Reindex failed: cannot read OCR text for documentId={} key='{}': {}",
-                    documentId, textKey, e.toString());
-            return;
-        }
-
-        List<String> tags = loadTagNames(documentId);
-
+    // Everything a search result needs is stored in the index, so results can be served from _source alone.
+    private IndexedDocument toIndexed(DocumentEntity doc, String ocrText) {
         IndexedDocument indexed = new IndexedDocument();
         indexed.setId(doc.getId());
         indexed.setFilename(doc.getFilename());
+        indexed.setContentType(doc.getContentType());
+        indexed.setSize(doc.getSize());
         indexed.setUploadedAt(doc.getUploadedAt());
         indexed.setContent(ocrText);
-        indexed.setTags(tags);
-
-        try {
-            Result r = searchIndexService.indexDocument(indexed);
-            log.info("Re-indexed documentId={} after tag change (result={})", doc.getId(), r);
-        } catch (Exception e) {
-            log.warn("Reindex failed for documentId={}: {}", documentId, e.toString());
-            return;
-        }
-
-        try {
-            doc.setOcrIndexedAt(OffsetDateTime.now());
-            documentRepository.save(doc);
-        } catch (Exception ignored) {
-        }
+        indexed.setTags(loadTagNames(doc.getId()));
+        return indexed;
     }
 
     private List<String> loadTagNames(Long documentId) {
-        List<DocumentTagEntity> links = documentTagRepository.findByDocument_Id(documentId);
-
-        // deterministic ordering helps tests + debugging
-        return links.stream()
-                .map(DocumentTagEntity::getTag)
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(t -> t.getName() == null ? "" : t.getName()))
-                .map(t -> t.getName() == null ? "" : t.getName())
-                .filter(s -> !s.isBlank())
-                .collect(Collectors.toList());
+        // sorted by the query; deterministic ordering helps tests + debugging
+        return documentTagRepository.findTagNamesGroupedByDocumentId(List.of(documentId))
+                .getOrDefault(documentId, List.of());
     }
-}
\ No newline at end of file
+}
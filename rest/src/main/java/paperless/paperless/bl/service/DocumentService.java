@@ -1,17 +1,30 @@
 package paperless.paperless.bl.service;
 
 import paperless.paperless.bl.model.BlDocument;
+import paperless.paperless.bl.model.BlDocumentPage;
 import paperless.paperless.bl.model.BlUploadRequest;
 
+import java.io.InputStream;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface DocumentService {
 
-    BlDocument saveDocument(BlUploadRequest request, byte[] data) throws Exception;
+    BlDocument saveDocument(BlUploadRequest request, InputStream data) throws Exception;
 
     BlDocument getById(Long id);
 
-    List<BlDocument> getRecent(int limit);
+    // Newest first; cursor is the nextCursor of the previous page (null for the first), tags match any.
+    BlDocumentPage list(int limit, String cursor, List<String> tags, OffsetDateTime uploadedFrom,
+                        OffsetDateTime uploadedTo);
 
     void updateSummary(Long documentId, String summary);
+
+    // Bytes [offset, offset + length) of the stored original, or from offset to the end if length < 0.
+    InputStream openContent(BlDocument document, long offset, long length);
+
+    String presignedContentUrl(BlDocument document, String contentType, String contentDisposition, int expirySeconds);
+
+    void updateSummaries(Map<Long, String> summaries);
 }
@@ -6,19 +6,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import paperless.paperless.bl.mapper.DocumentMapper;
 import paperless.paperless.bl.model.BlDocument;
+import paperless.paperless.bl.model.BlDocumentPage;
 import paperless.paperless.bl.model.BlUploadRequest;
 import paperless.paperless.dal.entity.DocumentEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
 import paperless.paperless.infrastructure.FileStorageService;
+import paperless.paperless.infrastructure.StoredObject;
 import paperless.paperless.messaging.OcrJobMessage;
-import paperless.paperless.messaging.OcrProducer;
+import paperless.paperless.messaging.OcrOutbox;
 
+import java.io.BufferedInputStream;
+import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,45 +32,55 @@ public class DocumentServiceImpl implements DocumentService {
 
     private final DocumentRepository documentRepository;
     private final FileStorageService fileStorageService;
-    private final OcrProducer ocrProducer;
+    private final OcrOutbox ocrOutbox;
     private final DocumentMapper mapper;
     private final Validator validator;
 
     public DocumentServiceImpl(DocumentRepository documentRepository,
                                FileStorageService fileStorageService,
-                               OcrProducer ocrProducer,
+                               OcrOutbox ocrOutbox,
                                DocumentMapper mapper,
                                Validator validator) {
         this.documentRepository = documentRepository;
         this.fileStorageService = fileStorageService;
-        this.ocrProducer = ocrProducer;
+        this.ocrOutbox = ocrOutbox;
         this.mapper = mapper;
         this.validator = validator;
     }
 
     @Override
     @Transactional
-    public BlDocument saveDocument(BlUploadRequest request, byte[] data) throws Exception {
+    public BlDocument saveDocument(BlUploadRequest request, InputStream data) throws Exception {
         Set<jakarta.validation.ConstraintViolation<BlUploadRequest>> violations = validator.validate(request);
         if (!violations.isEmpty()) {
             String validationMsg = violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
             throw new IllegalArgumentException(validationMsg);
         }
 
-        if (data == null || data.length == 0) {
+        if (data == null) {
             throw new IllegalArgumentException("file must not be empty");
         }
+        // peek one byte so an empty stream is rejected before anything is written to MinIO
+        BufferedInputStream in = new BufferedInputStream(data);
+        in.mark(1);
+        if (in.read() < 0) {
+            throw new IllegalArgumentException("file must not be empty");
+        }
+        in.reset();
 
-        // Upload to MinIO
-        String objectKey = fileStorageService.uploadFile(request.getFilename(), data);
-        log.info("File '{}' uploaded to MinIO with key '{}'", request.getFilename(), objectKey);
+        // Stream to MinIO (content-addressed; identical bytes are stored only once)
+        StoredObject stored = fileStorageService.uploadFile(request.getFilename(), request.getContentType(), in);
+        String objectKey = stored.getObjectKey();
+        log.info("File '{}' stored in MinIO with key '{}'{}", request.getFilename(), objectKey,
+                stored.isDeduplicated() ? " (duplicate content)" : "");
 
         DocumentEntity entity = new DocumentEntity();
         entity.setFilename(request.getFilename());
         entity.setContentType(request.getContentType());
-        entity.setSize(request.getSize() > 0 ? request.getSize() : data.length);
+        entity.setSize(stored.getSize());
         entity.setUploadedAt(OffsetDateTime.now());
         entity.setObjectKey(objectKey);
+        entity.setContentHash(stored.getSha256());
 
         DocumentEntity saved = documentRepository.save(entity);
 
@@ -79,7 +92,8 @@ public class DocumentServiceImpl implements DocumentService {
                 objectKey,
                 saved.getUploadedAt()
         );
-        ocrProducer.send(job);
+        // published by the outbox relay after commit
+        ocrOutbox.enqueue(job);
 
         return mapper.toBl(saved);
     }
@@ -92,12 +106,29 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     @Override
-    public List<BlDocument> getRecent(int limit) {
+    @Transactional(readOnly = true)
+    public BlDocumentPage list(int limit, String cursor, List<String> tags, OffsetDateTime uploadedFrom,
+                               OffsetDateTime uploadedTo) {
         int pageSize = Math.max(1, Math.min(limit, 100));
-        var page = documentRepository.findAll(
-                PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "uploadedAt"))
-        );
-        return page.stream().map(mapper::toBl).collect(Collectors.toList());
+        DocumentCursor after = cursor == null || cursor.isBlank() ? null : DocumentCursor.decode(cursor);
+        List<String> tagNames = tags == null ? List.of() : tags.stream()
+                .filter(t -> t != null && !t.isBlank())
+                .map(TagServiceImpl::normalizeAndValidateOne)
+                .distinct()
+                .toList();
+
+        // one extra row tells whether there is a next page without a count query
+        List<DocumentEntity> rows = documentRepository.findPage(
+                after == null ? null : after.uploadedAt(), after == null ? null : after.id(),
+                tagNames, uploadedFrom, uploadedTo, pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            DocumentEntity last = rows.get(pageSize - 1);
+            nextCursor = new DocumentCursor(last.getUploadedAt(), last.getId()).encode();
+        }
+        return new BlDocumentPage(rows.stream().map(mapper::toBl).collect(Collectors.toList()), nextCursor);
     }
 
     @Override
@@ -109,4 +140,23 @@ public class DocumentServiceImpl implements DocumentService {
             log.info("Summary updated for document {}", documentId);
         });
     }
+
+    @Override
+    public InputStream openContent(BlDocument document, long offset, long length) {
+        return fileStorageService.openStream(document.getObjectKey(), offset, length);
+    }
+
+    @Override
+    public String presignedContentUrl(BlDocument document, String contentType, String contentDisposition,
+                                      int expirySeconds) {
+        return fileStorageService.presignedGetUrl(document.getObjectKey(), contentType, contentDisposition,
+                expirySeconds);
+    }
+
+    @Override
+    @Transactional
+    public void updateSummaries(Map<Long, String> summaries) {
+        int updated = documentRepository.updateSummaries(summaries);
+        log.info("Summaries updated for {} of {} documents", updated, summaries.size());
+    }
 }
\ No newline at end of file
@@ -1,9 +1,10 @@
 package paperless.paperless.bl.service;
 
-import paperless.paperless.model.SearchDocumentResult;
+import paperless.paperless.bl.model.BlSearchPage;
 
 import java.util.List;
 
 public interface SearchService {
-    List<SearchDocumentResult> search(String query, List<String> tags, int limit);
+    // cursor is the nextCursor of the previous page, null for the first
+    BlSearchPage search(String query, List<String> tags, int limit, String cursor);
 }
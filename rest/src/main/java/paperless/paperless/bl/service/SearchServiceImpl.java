@@ -2,14 +2,17 @@ package paperless.paperless.bl.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import paperless.paperless.bl.model.BlSearchPage;
 import paperless.paperless.dal.entity.DocumentEntity;
-import paperless.paperless.dal.entity.DocumentTagEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
 import paperless.paperless.dal.repository.DocumentTagRepository;
 import paperless.paperless.model.SearchDocumentResult;
 import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.IndexedDocument;
 import paperless.paperless.search.dto.SearchHit;
+import paperless.paperless.search.dto.SearchPage;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,6 +26,10 @@ public class SearchServiceImpl implements SearchService {
     private final DocumentRepository documentRepository;
     private final DocumentTagRepository documentTagRepository;
 
+    // index = build results from the hit _source, database = reload every hit from Postgres
+    @Value("${search.results.source:index}")
+    private String resultSource = "index";
+
     public SearchServiceImpl(SearchIndexService searchIndexService,
                              DocumentRepository documentRepository,
                              DocumentTagRepository documentTagRepository) {
@@ -32,44 +39,65 @@ public class SearchServiceImpl implements SearchService {
     }
 
     @Override
-    public List<SearchDocumentResult> search(String query, List<String> tags, int limit) {
+    public BlSearchPage search(String query, List<String> tags, int limit, String cursor) {
         int size = Math.max(1, Math.min(limit, 100));
 
-        List<SearchHit> hits;
+        SearchPage page;
         try {
-            hits = searchIndexService.search(query, tags, size);
+            page = searchIndexService.search(query, tags, size, cursor);
+        } catch (IllegalArgumentException e) {
+            // bad or expired cursor: the client has to restart, not see an empty result
+            throw e;
         } catch (Exception e) {
             log.error("Elasticsearch search failed: {}", e.toString(), e);
-            return List.of();
+            page = SearchPage.empty();
         }
+        return new BlSearchPage(toResults(page.getHits()), page.getTotal(), page.isTotalExact(), page.getNextCursor());
+    }
 
+    private List<SearchDocumentResult> toResults(List<SearchHit> hits) {
         if (hits.isEmpty()) return List.of();
 
-        List<Long> ids = hits.stream()
+        // index mode: hits carry everything in _source; only hits indexed before contentType/size were
+        // stored (or when running in database mode) are completed from Postgres
+        boolean fromIndex = !"database".equalsIgnoreCase(resultSource);
+        List<Long> fromDb = hits.stream()
+                .filter(h -> h.getId() != null)
+                .filter(h -> !fromIndex || !isComplete(h.getDocument()))
                 .map(SearchHit::getId)
-                .filter(Objects::nonNull)
                 .toList();
 
-        List<DocumentEntity> docs = documentRepository.findAllById(ids);
-        Map<Long, DocumentEntity> docById = docs.stream()
-                .filter(d -> d.getId() != null)
-                .collect(Collectors.toMap(DocumentEntity::getId, d -> d, (a, b) -> a));
+        Map<Long, DocumentEntity> docById = Map.of();
+        Map<Long, List<String>> tagsByDoc = Map.of();
+        if (!fromDb.isEmpty()) {
+            docById = documentRepository.findAllById(fromDb).stream()
+                    .filter(d -> d.getId() != null)
+                    .collect(Collectors.toMap(DocumentEntity::getId, d -> d, (a, b) -> a));
+            // one query for the tags of all hits instead of one (plus lazy tag loads) per hit
+            tagsByDoc = documentTagRepository.findTagNamesGroupedByDocumentId(fromDb);
+        }
 
         List<SearchDocumentResult> out = new ArrayList<>();
         for (SearchHit h : hits) {
             if (h.getId() == null) continue;
+
+            IndexedDocument src = h.getDocument();
+            if (fromIndex && isComplete(src)) {
+                out.add(new SearchDocumentResult(h.getId(), src.getFilename(), src.getContentType(), src.getSize(),
+                        src.getUploadedAt(), src.getTags(), h.getScore()));
+                continue;
+            }
+
             DocumentEntity doc = docById.get(h.getId());
             if (doc == null) continue;
 
-            List<String> tagNames = loadTags(doc.getId());
-
             SearchDocumentResult r = new SearchDocumentResult();
             r.setId(doc.getId());
             r.setFilename(doc.getFilename());
             r.setContentType(doc.getContentType());
             r.setSize(doc.getSize());
             r.setUploadedAt(doc.getUploadedAt());
-            r.setTags(tagNames);
+            r.setTags(tagsByDoc.getOrDefault(doc.getId(), List.of()));
             r.setScore(h.getScore());
 
             out.add(r);
@@ -78,14 +106,7 @@ public class SearchServiceImpl implements SearchService {
         return out;
     }
 
-    private List<String> loadTags(Long documentId) {
-        List<DocumentTagEntity> links = documentTagRepository.findByDocument_Id(documentId);
-        return links.stream()
-                .map(DocumentTagEntity::getTag)
-                .filter(Objects::nonNull)
-                .map(t -> t.getName() == null ? "" : t.getName())
-                .filter(s -> !s.isBlank())
-                .sorted()
-                .toList();
+    private static boolean isComplete(IndexedDocument src) {
+        return src != null && src.getContentType() != null && src.getSize() != null && src.getUploadedAt() != null;
     }
 }
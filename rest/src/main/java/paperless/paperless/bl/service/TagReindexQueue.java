@@ -0,0 +1,139 @@
+package paperless.paperless.bl.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import paperless.paperless.dal.repository.DocumentTagRepository;
+import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.BulkIndexResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes tag changes to Elasticsearch asynchronously.
+ * <p>
+ * Changed document ids are collected for {@code search.tags.debounceMs}; repeated edits of the same
+ * document in that window collapse into one entry. The current tags of all collected documents are then
+ * loaded with one query and sent as partial {@code update}s of the {@code tags} field, so the OCR text
+ * is neither downloaded nor re-indexed.
+ * <p>
+ * When ES is unreachable the documents stay pending and the next attempt backs off exponentially, up to
+ * {@link #MAX_BACKOFF_MS}. A document ES does not have yet ({@code document_missing}) is usually still in the
+ * {@link BulkIndexer} queue, which reads the current tags right before sending. An edit made after that read
+ * still loses the race, so missing documents are retried a few times with growing delays.
+ */
+@Component
+public class TagReindexQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TagReindexQueue.class);
+
+    static final long MAX_BACKOFF_MS = 60_000;
+    static final int MAX_MISSING_RETRIES = 5;
+
+    private final SearchIndexService searchIndexService;
+    private final DocumentTagRepository documentTagRepository;
+    private final long debounceMs;
+
+    // 0 while ES answers; otherwise the delay before the next attempt, doubled on every failure
+    private volatile long backoffMs;
+    private volatile long notBeforeNanos;
+    private final Map<Long, Integer> missingAttempts = new ConcurrentHashMap<>();
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tag-reindex");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TagReindexQueue(SearchIndexService searchIndexService,
+                           DocumentTagRepository documentTagRepository,
+                           @Value("${search.tags.debounceMs:500}") long debounceMs) {
+        this.searchIndexService = searchIndexService;
+        this.documentTagRepository = documentTagRepository;
+        this.debounceMs = debounceMs;
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    // Only queued after commit: a rolled back tag change must not reach the index.
+    public void submit(Long documentId) {
+        if (documentId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { enqueue(documentId); }
+            });
+        } else {
+            enqueue(documentId);
+        }
+    }
+
+    private void enqueue(Long documentId) {
+        pending.add(documentId);
+        if (scheduled.compareAndSet(false, true)) {
+            long untilRetry = TimeUnit.NANOSECONDS.toMillis(notBeforeNanos - System.nanoTime());
+            scheduler.schedule(this::flush, backoffMs == 0 ? debounceMs : Math.max(debounceMs, untilRetry),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Sends one partial update per pending document; package-private for tests.
+    void flush() {
+        scheduled.set(false);
+        List<Long> ids = new ArrayList<>();
+        for (Long id : pending) {
+            if (pending.remove(id)) ids.add(id);
+        }
+        if (ids.isEmpty()) return;
+
+        try {
+            Map<Long, List<String>> found = documentTagRepository.findTagNamesGroupedByDocumentId(ids);
+            // documents whose last tag was removed still need an (empty) update
+            Map<Long, List<String>> tags = new LinkedHashMap<>();
+            for (Long id : ids) tags.put(id, found.getOrDefault(id, List.of()));
+
+            BulkIndexResult result = searchIndexService.updateTags(tags);
+            backoffMs = 0;
+            result.getSucceeded().forEach(missingAttempts::remove);
+            result.getFailed().forEach(this::onFailed);
+        } catch (Exception e) {
+            backoffMs = backoffMs == 0 ? debounceMs : Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            notBeforeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+            log.error("Tag update of {} document(s) failed, retrying in {} ms: {}", ids.size(), backoffMs, e.toString());
+            if (!scheduler.isShutdown()) ids.forEach(this::enqueue);
+        }
+    }
+
+    long backoffMs() { return backoffMs; }
+
+    private void onFailed(Long id, String reason) {
+        if (reason != null && reason.contains("document_missing")) {
+            int attempt = missingAttempts.merge(id, 1, Integer::sum);
+            if (attempt <= MAX_MISSING_RETRIES && !scheduler.isShutdown()) {
+                scheduler.schedule(() -> enqueue(id), debounceMs << attempt, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        missingAttempts.remove(id);
+        log.warn("Tag update for documentId={} not applied: {}", id, reason);
+    }
+}
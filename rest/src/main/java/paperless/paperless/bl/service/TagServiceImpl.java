@@ -31,18 +31,18 @@ public class TagServiceImpl implements TagService {
     private final TagRepository tagRepository;
     private final DocumentTagRepository documentTagRepository;
     private final TagMapper tagMapper;
-    private final DocumentIndexingService documentIndexingService;
+    private final TagReindexQueue tagReindexQueue;
 
     public TagServiceImpl(DocumentRepository documentRepository,
                           TagRepository tagRepository,
                           DocumentTagRepository documentTagRepository,
                           TagMapper tagMapper,
-                          DocumentIndexingService documentIndexingService) {
+                          TagReindexQueue tagReindexQueue) {
         this.documentRepository = documentRepository;
         this.tagRepository = tagRepository;
         this.documentTagRepository = documentTagRepository;
         this.tagMapper = tagMapper;
-        this.documentIndexingService = documentIndexingService;
+        this.tagReindexQueue = tagReindexQueue;
     }
 
     @Override
@@ -102,8 +102,8 @@ public class TagServiceImpl implements TagService {
             documentTagRepository.deleteAll(existingByName.values());
         }
 
+        tagReindexQueue.submit(doc.getId());
         // return in the same order as requested
-        documentIndexingService.reindexDocument(doc.getId());
         return finalTags.stream().map(tagMapper::toBl).collect(Collectors.toList());
     }
 
@@ -128,7 +128,7 @@ public class TagServiceImpl implements TagService {
             link.setAssignedAt(OffsetDateTime.now());
             documentTagRepository.save(link);
         }
-        documentIndexingService.reindexDocument(doc.getId());
+        tagReindexQueue.submit(doc.getId());
         return tagMapper.toBl(tag);
     }
 
@@ -145,7 +145,7 @@ public class TagServiceImpl implements TagService {
         }
 
         documentTagRepository.deleteByDocument_IdAndTag_Id(doc.getId(), tag.getId());
-        documentIndexingService.reindexDocument(doc.getId());
+        tagReindexQueue.submit(doc.getId());
     }
 
     // ---- helpers ----
@@ -173,7 +173,8 @@ public class TagServiceImpl implements TagService {
         return new ArrayList<>(set);
     }
 
-    private String normalizeAndValidateOne(String raw) {
+    // also used to normalize tag filters before they hit the tag table
+    static String normalizeAndValidateOne(String raw) {
         if (raw == null) throw new IllegalArgumentException("Tag name must not be null");
 
         String n = raw.trim().toLowerCase(Locale.ROOT);
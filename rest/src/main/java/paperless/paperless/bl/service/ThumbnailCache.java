@@ -0,0 +1,64 @@
+package paperless.paperless.bl.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import paperless.paperless.infrastructure.FileStorageService;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Page-1 thumbnails written by the ocrworker next to the original ({@code <objectKey>.thumb.jpg}), with an
+ * in-memory LRU in front of MinIO. The LRU is bounded by total bytes ({@code documents.thumbnail.cacheBytes});
+ * entries never go stale because object keys are content hashes. Missing thumbnails (OCR still running, not a
+ * PDF) are not cached, so they show up as soon as they exist.
+ */
+@Component
+public class ThumbnailCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailCache.class);
+
+    static final String SUFFIX = ".thumb.jpg";
+
+    private final FileStorageService fileStorageService;
+    private final long maxBytes;
+
+    // access-ordered: iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    public ThumbnailCache(FileStorageService fileStorageService,
+                          @Value("${documents.thumbnail.cacheBytes:33554432}") long maxBytes) {
+        this.fileStorageService = fileStorageService;
+        this.maxBytes = maxBytes;
+    }
+
+    // JPEG bytes of the document's thumbnail, or null if there is none (yet).
+    public byte[] get(String objectKey) {
+        synchronized (this) {
+            byte[] cached = entries.get(objectKey);
+            if (cached != null) return cached;
+        }
+        // not under the lock: a slow MinIO read must not block hits for other documents
+        byte[] loaded = fileStorageService.downloadFileIfExists(objectKey + SUFFIX);
+        if (loaded != null) put(objectKey, loaded);
+        return loaded;
+    }
+
+    private synchronized void put(String objectKey, byte[] data) {
+        if (data.length > maxBytes) return;
+        byte[] previous = entries.put(objectKey, data);
+        bytes += data.length - (previous == null ? 0 : previous.length);
+        Iterator<Map.Entry<String, byte[]>> lru = entries.entrySet().iterator();
+        while (bytes > maxBytes && lru.hasNext()) {
+            bytes -= lru.next().getValue().length;
+            lru.remove();
+        }
+        log.debug("Thumbnail cache: {} entries, {} bytes", entries.size(), bytes);
+    }
+
+    synchronized int size() { return entries.size(); }
+}
@@ -0,0 +1,70 @@
+package paperless.paperless.bl.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Safety net for {@link BulkIndexer}: its queue lives in memory, so a crash, a shutdown during an ES outage
+ * or a rejected item leaves documents with OCR text but without {@code ocrIndexedAt}. Every
+ * {@code search.sweep.intervalMs} up to {@code search.sweep.batchSize} of them, whose OCR result is older than
+ * {@code search.sweep.graceMs}, are queued again. The grace period keeps it clear of documents still on their way.
+ */
+@Component
+public class UnindexedDocumentSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(UnindexedDocumentSweeper.class);
+
+    private final DocumentIndexingService indexingService;
+    private final long intervalMs;
+    private final long graceMs;
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "es-index-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+    // resume after the last id looked at, so rows that keep failing don't hide the ones behind them
+    private long afterId;
+
+    public UnindexedDocumentSweeper(DocumentIndexingService indexingService,
+                                    @Value("${search.sweep.intervalMs:300000}") long intervalMs,
+                                    @Value("${search.sweep.graceMs:600000}") long graceMs,
+                                    @Value("${search.sweep.batchSize:100}") int batchSize) {
+        this.indexingService = indexingService;
+        this.intervalMs = intervalMs;
+        this.graceMs = graceMs;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @PostConstruct
+    void start() {
+        if (intervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::sweep, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    // package-private for tests
+    void sweep() {
+        try {
+            afterId = indexingService.requeueUnindexed(OffsetDateTime.now().minusNanos(graceMs * 1_000_000),
+                    afterId, batchSize);
+        } catch (Exception e) {
+            log.error("Sweep for unindexed documents failed: {}", e.toString());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
@@ -16,7 +17,10 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ElasticsearchConfig {
 
+    // alias used for every read and write; it points to the versioned index below
     public static final String DOCUMENTS_INDEX_NAME = "documents";
+    // bump together with elasticsearch/documents-index.json when the mapping changes incompatibly
+    public static final String DOCUMENTS_INDEX_VERSION = "documents_v2";
 
     @Value("${elasticsearch.host}")
     private String host;
@@ -33,6 +37,8 @@ public class ElasticsearchConfig {
     public ElasticsearchTransport getElasticsearchTransport() {
         JacksonJsonpMapper mapper = new JacksonJsonpMapper();
         mapper.objectMapper().registerModule(new JavaTimeModule());
+        // ISO-8601 instead of fractional epoch seconds, matching the "date" mapping of uploadedAt
+        mapper.objectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         mapper.objectMapper().registerModule(new JsonNullableModule());
         return new RestClientTransport(getRestClient(), mapper);
     }
@@ -0,0 +1,70 @@
+package paperless.paperless.config;
+
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure the bucket exists once, at startup, instead of before every write. If MinIO is not reachable yet the
+ * check is repeated by the next {@link #ensureBucket()}; a write that fails with {@code NoSuchBucket} (bucket
+ * removed at runtime) clears the flag through {@link #onWriteFailure(Exception)}.
+ */
+@Component
+public class MinioBucketInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MinioBucketInitializer.class);
+
+    private final MinioClient minioClient;
+    private final MinioConfig config;
+    private volatile boolean verified;
+
+    public MinioBucketInitializer(MinioClient minioClient, MinioConfig config) {
+        this.minioClient = minioClient;
+        this.config = config;
+    }
+
+    @PostConstruct
+    void provision() {
+        try {
+            ensureBucket();
+        } catch (Exception e) {
+            log.warn("Could not verify MinIO bucket '{}' at startup, will retry on first write: {}",
+                    config.getBucketName(), e.toString());
+        }
+    }
+
+    // No MinIO call once the bucket has been verified.
+    public void ensureBucket() throws Exception {
+        if (verified) return;
+        synchronized (this) {
+            if (verified) return;
+            String bucket = config.getBucketName();
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+                log.info("Created bucket '{}'", bucket);
+            }
+            verified = true;
+        }
+    }
+
+    public void onWriteFailure(Exception e) {
+        if (isNoSuchBucket(e)) {
+            verified = false;
+            log.warn("Bucket '{}' is gone; it will be created again on the next write", config.getBucketName());
+        }
+    }
+
+    static boolean isNoSuchBucket(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ErrorResponseException ex && "NoSuchBucket".equalsIgnoreCase(ex.errorResponse().code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
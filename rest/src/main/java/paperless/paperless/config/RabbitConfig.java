@@ -3,15 +3,22 @@ package paperless.paperless.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.core.AmqpAdmin;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import paperless.paperless.messaging.GenAiResultParking;
 import java.util.Map;
 
 @Configuration
@@ -31,6 +38,53 @@ public class RabbitConfig {
         return new Queue(name, true);
     }
 
+    @Bean(name = "genAiResultQueue")
+    public Queue genAiResultQueue(@Value("${genai.result.queue.name}") String name) {
+        return new Queue(name, true);
+    }
+
+    // summaries whose batch kept failing; declared by GenAiResultParking when the first batch is parked
+    @Bean(name = "genAiResultDlq")
+    public Queue genAiResultDlq(@Value("${genai.result.queue.name}") String name) {
+        return new Queue(name + "_DLQ", true);
+    }
+
+    @Bean
+    public MessageBatchRecoverer genAiResultParking(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+                                                    @Qualifier("genAiResultDlq") Queue genAiResultDlq) {
+        return new GenAiResultParking(rabbitTemplate, amqpAdmin, genAiResultDlq);
+    }
+
+    // Summaries are applied in batches: the consumer blocks until batchSize messages arrived or
+    // receiveTimeoutMs passed without one, then gets them as a single List.
+    // A failing batch (e.g. the database is down) is retried in place with exponential backoff; after
+    // retry.maxAttempts it is parked instead of being requeued and redelivered at once.
+    @Bean
+    public SimpleRabbitListenerContainerFactory genAiResultListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory cf,
+            MessageBatchRecoverer genAiResultParking,
+            @Value("${genai.result.batchSize:50}") int batchSize,
+            @Value("${genai.result.receiveTimeoutMs:1000}") long receiveTimeoutMs,
+            @Value("${genai.result.retry.maxAttempts:5}") int maxAttempts,
+            @Value("${genai.result.retry.initialIntervalMs:1000}") long initialIntervalMs,
+            @Value("${genai.result.retry.maxIntervalMs:30000}") long maxIntervalMs) {
+        SimpleRabbitListenerContainerFactory f = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(f, cf);
+        f.setBatchListener(true);
+        f.setConsumerBatchEnabled(true);
+        f.setBatchSize(batchSize);
+        f.setPrefetchCount(Math.max(batchSize, 1));
+        f.setReceiveTimeout(receiveTimeoutMs);
+        f.setDefaultRequeueRejected(false);
+        f.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(Math.max(1, maxAttempts))
+                .backOffOptions(initialIntervalMs, 2.0, maxIntervalMs)
+                .recoverer(genAiResultParking)
+                .build());
+        return f;
+    }
+
     @Bean
     public RabbitAdmin amqpAdmin(ConnectionFactory cf) {
         RabbitAdmin admin = new RabbitAdmin(cf);
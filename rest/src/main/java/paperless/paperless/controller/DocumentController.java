@@ -1,19 +1,32 @@
 package paperless.paperless.controller;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import paperless.paperless.bl.mapper.DocumentMapper;
 import paperless.paperless.bl.model.BlDocument;
+import paperless.paperless.bl.model.BlDocumentPage;
 import paperless.paperless.bl.model.BlUploadRequest;
 import paperless.paperless.bl.service.DocumentService;
+import paperless.paperless.bl.service.ThumbnailCache;
 import paperless.paperless.model.Document;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -26,9 +39,23 @@ public class DocumentController {
     // 50 MB soft guard (in addition to nginx client_max_body_size)
     private static final long MAX_UPLOAD_BYTES = DataSize.ofMegabytes(50).toBytes();
 
-    public DocumentController(DocumentService documentService, DocumentMapper mapper) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // the original file of a document id never changes (objects are content-addressed)
+    private static final CacheControl CONTENT_CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+
+    private final boolean contentRedirect;
+    private final int contentUrlExpirySeconds;
+    private final ThumbnailCache thumbnailCache;
+
+    public DocumentController(DocumentService documentService, DocumentMapper mapper, ThumbnailCache thumbnailCache,
+                              @Value("${documents.content.presignedRedirect:false}") boolean contentRedirect,
+                              @Value("${documents.content.presignedExpirySeconds:300}") int contentUrlExpirySeconds) {
         this.documentService = documentService;
         this.mapper = mapper;
+        this.thumbnailCache = thumbnailCache;
+        this.contentRedirect = contentRedirect;
+        this.contentUrlExpirySeconds = contentUrlExpirySeconds;
     }
 
     @PostMapping(path = "/documents", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -48,7 +75,11 @@ public class DocumentController {
                 file.getSize()
         );
 
-        BlDocument saved = documentService.saveDocument(req, file.getBytes());
+        // the part is spooled to disk by the servlet container; stream it instead of loading it into a byte[]
+        BlDocument saved;
+        try (InputStream in = file.getInputStream()) {
+            saved = documentService.saveDocument(req, in);
+        }
         Document dto = mapper.toApi(saved);
 
         URI location = uriBuilder
@@ -71,10 +102,133 @@ public class DocumentController {
         return ResponseEntity.ok(mapper.toApi(bl));
     }
 
+    /**
+     * Documents, newest first, one keyset page at a time. When more documents follow, the opaque cursor of the
+     * next page is returned in {@code X-Next-Cursor}; passing it back as {@code cursor} costs the same at any
+     * depth. Optional filters: {@code tag} (repeatable, any of), {@code from} inclusive and {@code to} exclusive.
+     */
     @GetMapping(path = "/documents", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Document>> list(@RequestParam(name = "limit", defaultValue = "10") int limit) {
-        List<BlDocument> items = documentService.getRecent(limit);
-        return ResponseEntity.ok(mapper.toApiList(items));
+    public ResponseEntity<List<Document>> list(@RequestParam(name = "limit", defaultValue = "10") int limit,
+                                               @RequestParam(name = "cursor", required = false) String cursor,
+                                               @RequestParam(name = "tag", required = false) List<String> tags,
+                                               @RequestParam(name = "from", required = false) String from,
+                                               @RequestParam(name = "to", required = false) String to) {
+        BlDocumentPage page = documentService.list(limit, cursor, tags, timestamp("from", from), timestamp("to", to));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(mapper.toApiList(page.getItems()));
+    }
+
+    /**
+     * The original file, streamed from MinIO without buffering it. Supports a single byte range ({@code Range},
+     * honouring {@code If-Range}) and revalidation by {@code If-None-Match}; the ETag is the content hash, so a
+     * 304 needs no MinIO call. With {@code documents.content.presignedRedirect} the client is sent to a presigned
+     * MinIO URL instead.
+     */
+    @GetMapping("/documents/{id}/content")
+    public ResponseEntity<StreamingResponseBody> content(@PathVariable("id") Long id,
+                                                         @RequestHeader HttpHeaders request) {
+        BlDocument doc = documentService.getById(id);
+        if (doc == null || doc.getObjectKey() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = doc.getContentHash() == null ? null : "\"" + doc.getContentHash() + "\"";
+        if (etag != null && matches(request.getIfNoneMatch(), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CONTENT_CACHE).build();
+        }
+
+        String contentType = doc.getContentType() == null || doc.getContentType().isBlank()
+                ? MediaType.APPLICATION_OCTET_STREAM_VALUE : doc.getContentType();
+        String disposition = ContentDisposition.inline()
+                .filename(doc.getFilename(), StandardCharsets.UTF_8).build().toString();
+
+        if (contentRedirect) {
+            String url = documentService.presignedContentUrl(doc, contentType, disposition, contentUrlExpirySeconds);
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(URI.create(url)).build();
+        }
+
+        long size = doc.getSize();
+        long start = 0;
+        long length = size;
+        HttpStatus status = HttpStatus.OK;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+        HttpRange range = request.containsKey(HttpHeaders.RANGE) && (ifRange == null || ifRange.equals(etag))
+                ? singleRange(request) : null;
+        if (range != null) {
+            start = range.getRangeStart(size);
+            if (start >= size) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+            length = range.getRangeEnd(size) - start + 1;
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + size);
+        }
+
+        long offset = start;
+        long count = length;
+        StreamingResponseBody body = out -> {
+            try (InputStream in = documentService.openContent(doc, offset, count)) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.status(status)
+                .headers(headers)
+                .eTag(etag)
+                .cacheControl(CONTENT_CACHE)
+                .contentType(MediaType.parseMediaType(contentType))
+                .contentLength(length)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                .body(body);
+    }
+
+    // The single range asked for, or null to answer with the whole file: RFC 9110 ignores a Range header that does
+    // not parse, and several ranges would need multipart/byteranges, for which a full 200 is an allowed answer.
+    private static HttpRange singleRange(HttpHeaders request) {
+        try {
+            List<HttpRange> ranges = request.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Page-1 preview for the document list; 404 while the ocrworker has not produced one (or for non-PDFs).
+    @GetMapping(path = "/documents/{id}/thumbnail", produces = MediaType.IMAGE_JPEG_VALUE)
+    public ResponseEntity<byte[]> thumbnail(@PathVariable("id") Long id,
+                                            @RequestHeader HttpHeaders request) {
+        BlDocument doc = documentService.getById(id);
+        if (doc == null || doc.getObjectKey() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = doc.getContentHash() == null ? null : "\"" + doc.getContentHash() + "-thumb\"";
+        if (etag != null && matches(request.getIfNoneMatch(), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CONTENT_CACHE).build();
+        }
+
+        byte[] jpeg = thumbnailCache.get(doc.getObjectKey());
+        if (jpeg == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CONTENT_CACHE)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(jpeg);
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) return true;
+        }
+        return false;
     }
 
     @PostMapping("/documents/{id}/summary")
@@ -82,4 +236,14 @@ public class DocumentController {
         documentService.updateSummary(id, summary);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // ISO-8601 with offset, e.g. 2024-01-01T00:00:00Z
+    private static OffsetDateTime timestamp(String name, String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + name + "' must be an ISO-8601 timestamp with offset.");
+        }
+    }
+}
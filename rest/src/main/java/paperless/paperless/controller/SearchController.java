@@ -3,6 +3,7 @@ package paperless.paperless.controller;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import paperless.paperless.bl.model.BlSearchPage;
 import paperless.paperless.bl.service.SearchService;
 import paperless.paperless.model.SearchDocumentResult;
 
@@ -12,18 +13,34 @@ import java.util.List;
 @RequestMapping("/api")
 public class SearchController {
 
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_RELATION_HEADER = "X-Total-Count-Relation";
+
     private final SearchService searchService;
 
     public SearchController(SearchService searchService) {
         this.searchService = searchService;
     }
 
+    /**
+     * One page of hits, best first. {@code X-Total-Count} is the number of hits, exact up to
+     * {@code search.trackTotalHits} and a lower bound above it ({@code X-Total-Count-Relation: gte}).
+     * While more hits follow, {@code X-Next-Cursor} holds the cursor of the next page.
+     */
     @GetMapping(path = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<SearchDocumentResult>> search(
             @RequestParam(name = "query", required = false) String query,
             @RequestParam(name = "tag", required = false) List<String> tags,
-            @RequestParam(name = "limit", required = false, defaultValue = "20") int limit
+            @RequestParam(name = "limit", required = false, defaultValue = "20") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return ResponseEntity.ok(searchService.search(query, tags, limit));
+        BlSearchPage page = searchService.search(query, tags, limit, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotal()))
+                .header(TOTAL_RELATION_HEADER, page.isTotalExact() ? "eq" : "gte");
+        if (page.getNextCursor() != null) {
+            response.header(DocumentController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(
+        name = "documents",
+        // keyset pagination: newest first, id breaks ties between equal timestamps
+        indexes = @Index(name = "idx_documents_uploaded_at_id", columnList = "uploaded_at, id")
+)
 public class DocumentEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,12 +24,16 @@ public class DocumentEntity {
     @Column(nullable = false)
     private long size;
 
-    @Column(nullable = false)
+    @Column(nullable = false, name = "uploaded_at")
     private OffsetDateTime uploadedAt;
 
     @Column(name = "object_key")
     private String objectKey;
 
+    // SHA-256 (hex) of the file bytes; documents with the same hash share the stored object and OCR text
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "summary", columnDefinition = "TEXT")
     private String summary;
 
@@ -56,6 +64,9 @@ public class DocumentEntity {
     public String getObjectKey() { return objectKey; }
     public void setObjectKey(String objectKey) { this.objectKey = objectKey; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     public String getSummary() { return summary; }
     public void setSummary(String summary) { this.summary = summary; }
 
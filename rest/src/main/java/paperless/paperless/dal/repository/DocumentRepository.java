@@ -1,10 +1,30 @@
 package paperless.paperless.dal.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import paperless.paperless.dal.entity.DocumentEntity;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface DocumentRepository extends JpaRepository<DocumentEntity, Long> {
+public interface DocumentRepository extends JpaRepository<DocumentEntity, Long>, DocumentRepositoryCustom {
     Optional<DocumentEntity> findByFilename(String filename);
-}
\ No newline at end of file
+
+    // One statement per bulk batch instead of loading and saving each entity
+    @Transactional
+    @Modifying
+    @Query("update DocumentEntity d set d.ocrIndexedAt = :at where d.id in :ids")
+    int markIndexed(@Param("ids") Collection<Long> ids, @Param("at") OffsetDateTime at);
+
+    // OCR text stored, but ES never confirmed it (lost bulk batch, crash); walked by id so failing rows can't starve the rest
+    @Query("select d from DocumentEntity d where d.ocrTextKey is not null and d.ocrIndexedAt is null"
+            + " and d.ocrProcessedAt < :processedBefore and d.id > :afterId order by d.id")
+    List<DocumentEntity> findUnindexed(@Param("processedBefore") OffsetDateTime processedBefore,
+                                       @Param("afterId") long afterId, Pageable page);
+}
@@ -0,0 +1,25 @@
+package paperless.paperless.dal.repository;
+
+import paperless.paperless.dal.entity.DocumentEntity;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface DocumentRepositoryCustom {
+
+    // Writes all summaries in one JDBC batch; ids without a row are skipped. Returns the rows updated.
+    int updateSummaries(Map<Long, String> summaries);
+
+    /**
+     * Up to {@code limit} documents, newest first (ties broken by id), that come strictly after the key
+     * ({@code afterUploadedAt}, {@code afterId}) in that order. Without a key the first page is returned.
+     * <p>
+     * Optional filters: any of the (normalized) {@code tags}, {@code uploadedFrom} inclusive and
+     * {@code uploadedTo} exclusive. The key condition is a row-value comparison on
+     * {@code (uploaded_at, id)}, so every page is a range scan of the same index and costs as much as the first.
+     */
+    List<DocumentEntity> findPage(OffsetDateTime afterUploadedAt, Long afterId, Collection<String> tags,
+                                  OffsetDateTime uploadedFrom, OffsetDateTime uploadedTo, int limit);
+}
@@ -0,0 +1,71 @@
+package paperless.paperless.dal.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import paperless.paperless.dal.entity.DocumentEntity;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class DocumentRepositoryImpl implements DocumentRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    DocumentRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updateSummaries(Map<Long, String> summaries) {
+        if (summaries.isEmpty()) return 0;
+        List<Object[]> args = new ArrayList<>(summaries.size());
+        summaries.forEach((id, summary) -> args.add(new Object[]{summary, id}));
+
+        int updated = 0;
+        for (int n : jdbcTemplate.batchUpdate("update documents set summary = ? where id = ?", args)) {
+            // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+            if (n > 0) updated += n;
+        }
+        return updated;
+    }
+
+    @Override
+    public List<DocumentEntity> findPage(OffsetDateTime afterUploadedAt, Long afterId, Collection<String> tags,
+                                         OffsetDateTime uploadedFrom, OffsetDateTime uploadedTo, int limit) {
+        StringBuilder jpql = new StringBuilder("select d from DocumentEntity d where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (afterUploadedAt != null && afterId != null) {
+            // rendered as a row-value comparison where the dialect supports it (PostgreSQL, H2)
+            jpql.append(" and (d.uploadedAt, d.id) < (:afterUploadedAt, :afterId)");
+            params.put("afterUploadedAt", afterUploadedAt);
+            params.put("afterId", afterId);
+        }
+        if (uploadedFrom != null) {
+            jpql.append(" and d.uploadedAt >= :uploadedFrom");
+            params.put("uploadedFrom", uploadedFrom);
+        }
+        if (uploadedTo != null) {
+            jpql.append(" and d.uploadedAt < :uploadedTo");
+            params.put("uploadedTo", uploadedTo);
+        }
+        if (tags != null && !tags.isEmpty()) {
+            // same semantics as the search tag filter: any of the tags
+            jpql.append(" and exists (select 1 from DocumentTagEntity dt"
+                    + " where dt.document = d and dt.tag.name in :tags)");
+            params.put("tags", tags);
+        }
+        jpql.append(" order by d.uploadedAt desc, d.id desc");
+
+        TypedQuery<DocumentEntity> query = entityManager.createQuery(jpql.toString(), DocumentEntity.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -1,12 +1,24 @@
 package paperless.paperless.dal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import paperless.paperless.dal.entity.DocumentTagEntity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface DocumentTagRepository extends JpaRepository<DocumentTagEntity, Long> {
 
+    // (documentId, tagName) pair of the bulk lookup below
+    interface DocumentTagName {
+        Long getDocumentId();
+        String getTagName();
+    }
+
     List<DocumentTagEntity> findByDocument_Id(Long documentId);
 
     boolean existsByDocument_IdAndTag_Id(Long documentId, Long tagId);
@@ -14,4 +26,22 @@ public interface DocumentTagRepository extends JpaRepository<DocumentTagEntity,
     void deleteByDocument_IdAndTag_Id(Long documentId, Long tagId);
 
     void deleteByDocument_Id(Long documentId);
+
+    // One statement for any number of documents; no entities are loaded.
+    @Query("select dt.document.id as documentId, t.name as tagName " +
+            "from DocumentTagEntity dt join dt.tag t " +
+            "where dt.document.id in :documentIds " +
+            "order by t.name")
+    List<DocumentTagName> findTagNamesByDocumentIds(@Param("documentIds") Collection<Long> documentIds);
+
+    // Sorted, non-blank tag names per document id; documents without tags are absent from the map.
+    default Map<Long, List<String>> findTagNamesGroupedByDocumentId(Collection<Long> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) return Map.of();
+        Map<Long, List<String>> byDoc = new LinkedHashMap<>();
+        for (DocumentTagName row : findTagNamesByDocumentIds(documentIds)) {
+            if (row.getTagName() == null || row.getTagName().isBlank()) continue;
+            byDoc.computeIfAbsent(row.getDocumentId(), id -> new ArrayList<>()).add(row.getTagName());
+        }
+        return byDoc;
+    }
 }
@@ -0,0 +1,21 @@
+package paperless.paperless.dal.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import paperless.paperless.dal.entity.OcrOutboxEntity;
+
+import java.util.List;
+
+public interface OcrOutboxRepository extends JpaRepository<OcrOutboxEntity, Long> {
+
+    // Oldest first; rows locked by another instance are skipped (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OcrOutboxEntity o order by o.id")
+    List<OcrOutboxEntity> lockNextBatch(Pageable page);
+}
@@ -2,14 +2,21 @@ package paperless.paperless.infrastructure;
 
 import io.minio.*;
 import io.minio.errors.*;
+import io.minio.http.Method;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import paperless.paperless.config.MinioBucketInitializer;
 import paperless.paperless.config.MinioConfig;
 
 import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -19,46 +26,110 @@ public class FileStorageService {
 
     private final MinioClient minioClient;
     private final MinioConfig config;
+    private final MinioBucketInitializer bucketInitializer;
 
     @Autowired
-    public FileStorageService(MinioClient minioClient, MinioConfig config) {
+    public FileStorageService(MinioClient minioClient, MinioConfig config, MinioBucketInitializer bucketInitializer) {
         this.minioClient = minioClient;
         this.config = config;
+        this.bucketInitializer = bucketInitializer;
     }
 
-    public String uploadFile(String originalFilename, byte[] bytes) {
-        String cleanFilename = (originalFilename == null || originalFilename.isBlank())
-                ? "unnamed.pdf"
-                : originalFilename;
-        String objectKey = UUID.randomUUID() + "_" + cleanFilename;
+    // Objects are keyed by content, so identical uploads share one object (and one OCR text next to it).
+    private static final String HASH_KEY_PREFIX = "sha256/";
+    // Files larger than one part land here first, because their hash is only known once the last byte went through.
+    private static final String STAGING_KEY_PREFIX = "uploads/";
+    // S3 part size for uploads of unknown length; bounds the heap used per upload
+    private static final long PART_SIZE = 5L * 1024 * 1024;
 
+    /**
+     * Stores {@code in} in MinIO under the SHA-256 of its content, hashing and counting it on the way.
+     * <p>
+     * A file of at most one part is read into memory first (the MinIO client buffers a whole part anyway), so its
+     * key is known before anything is written: a new file costs a stat and a put, a duplicate only the stat.
+     * A larger file is streamed to a temporary key while it is hashed, then copied (server-side) to its
+     * content-addressed key, or dropped if identical content is already stored: put, stat, copy and remove for a
+     * new file, put, stat and remove for a duplicate. Neither path holds more than one part in memory.
+     */
+    public StoredObject uploadFile(String originalFilename, String contentType, InputStream in) {
+        String type = contentType == null || contentType.isBlank() ? "application/octet-stream" : contentType;
         try {
-            boolean exists = minioClient.bucketExists(
-                    BucketExistsArgs.builder().bucket(config.getBucketName()).build()
-            );
-            if (!exists) {
-                minioClient.makeBucket(MakeBucketArgs.builder().bucket(config.getBucketName()).build());
-                log.info("Created bucket '{}'", config.getBucketName());
-            }
+            // a no-op once the bucket has been verified
+            bucketInitializer.ensureBucket();
 
-            try (ByteArrayInputStream in = new ByteArrayInputStream(bytes)) {
-                minioClient.putObject(
-                        PutObjectArgs.builder()
-                                .bucket(config.getBucketName())
-                                .object(objectKey)
-                                .stream(in, bytes.length, -1)
-                                .contentType("application/pdf")
-                                .build()
-                );
+            byte[] head = in.readNBytes((int) PART_SIZE + 1);
+            if (head.length <= PART_SIZE) {
+                return storeBuffered(originalFilename, type, head);
             }
-
-            log.info("Uploaded '{}' to MinIO bucket '{}'", objectKey, config.getBucketName());
-            return objectKey;
+            return storeStaged(originalFilename, type, new SequenceInputStream(new ByteArrayInputStream(head), in));
         } catch (Exception e) {
+            bucketInitializer.onWriteFailure(e);
             throw new RuntimeException("MinIO upload failed: " + e.getMessage(), e);
         }
     }
 
+    private StoredObject storeBuffered(String originalFilename, String contentType, byte[] bytes) throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        String objectKey = HASH_KEY_PREFIX + sha256;
+        if (objectExists(objectKey)) {
+            return duplicate(originalFilename, objectKey, sha256, bytes.length);
+        }
+
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(config.getBucketName())
+                        .object(objectKey)
+                        .stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+                        .contentType(contentType)
+                        .build()
+        );
+        log.info("Uploaded '{}' ({} bytes) to MinIO bucket '{}'", objectKey, bytes.length, config.getBucketName());
+        return new StoredObject(objectKey, sha256, bytes.length, false);
+    }
+
+    private StoredObject storeStaged(String originalFilename, String contentType, InputStream in) throws Exception {
+        String stagingKey = STAGING_KEY_PREFIX + UUID.randomUUID();
+        boolean staged = false;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            CountingInputStream counted = new CountingInputStream(new DigestInputStream(in, digest));
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(config.getBucketName())
+                            .object(stagingKey)
+                            .stream(counted, -1, PART_SIZE)
+                            .contentType(contentType)
+                            .build()
+            );
+            staged = true;
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            long size = counted.getByteCount();
+            String objectKey = HASH_KEY_PREFIX + sha256;
+
+            if (objectExists(objectKey)) {
+                return duplicate(originalFilename, objectKey, sha256, size);
+            }
+
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(config.getBucketName())
+                            .object(objectKey)
+                            .source(CopySource.builder().bucket(config.getBucketName()).object(stagingKey).build())
+                            .build()
+            );
+            log.info("Uploaded '{}' ({} bytes) to MinIO bucket '{}'", objectKey, size, config.getBucketName());
+            return new StoredObject(objectKey, sha256, size, false);
+        } finally {
+            if (staged) removeQuietly(stagingKey);
+        }
+    }
+
+    private static StoredObject duplicate(String originalFilename, String objectKey, String sha256, long size) {
+        log.info("'{}' has the same content as existing object '{}'; not storing it again", originalFilename, objectKey);
+        return new StoredObject(objectKey, sha256, size, true);
+    }
+
     public byte[] downloadFile(String objectKey) {
         try (GetObjectResponse response = minioClient.getObject(
                 GetObjectArgs.builder()
@@ -71,4 +142,75 @@ public class FileStorageService {
             throw new RuntimeException("MinIO download failed: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // Like downloadFile, but null instead of an exception if there is no such object.
+    public byte[] downloadFileIfExists(String objectKey) {
+        try {
+            return downloadFile(objectKey);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof ErrorResponseException ex
+                    && "NoSuchKey".equalsIgnoreCase(ex.errorResponse().code())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Opens {@code length} bytes of the object starting at {@code offset} (to the end if {@code length < 0}).
+     * MinIO serves only the requested range; the caller streams it on and closes it.
+     */
+    public InputStream openStream(String objectKey, long offset, long length) {
+        try {
+            GetObjectArgs.Builder args = GetObjectArgs.builder()
+                    .bucket(config.getBucketName())
+                    .object(objectKey)
+                    .offset(offset);
+            if (length >= 0) args.length(length);
+            return minioClient.getObject(args.build());
+        } catch (Exception e) {
+            throw new RuntimeException("MinIO download failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Time-limited GET URL the client can fetch directly from MinIO; the response headers are part of the signature.
+    public String presignedGetUrl(String objectKey, String contentType, String contentDisposition, int expirySeconds) {
+        try {
+            return minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(config.getBucketName())
+                            .object(objectKey)
+                            .expiry(expirySeconds)
+                            .extraQueryParams(Map.of(
+                                    "response-content-type", contentType,
+                                    "response-content-disposition", contentDisposition))
+                            .build()
+            );
+        } catch (Exception e) {
+            throw new RuntimeException("MinIO presign failed: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean objectExists(String objectKey) throws Exception {
+        try {
+            minioClient.statObject(
+                    StatObjectArgs.builder().bucket(config.getBucketName()).object(objectKey).build()
+            );
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equalsIgnoreCase(e.errorResponse().code())) return false;
+            throw e;
+        }
+    }
+
+    private void removeQuietly(String objectKey) {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder().bucket(config.getBucketName()).object(objectKey).build()
+            );
+        } catch (Exception e) {
+            log.warn("Could not remove staged upload '{}': {}", objectKey, e.toString());
+        }
+    }
+}
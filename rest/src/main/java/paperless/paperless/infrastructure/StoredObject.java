@@ -0,0 +1,28 @@
+package paperless.paperless.infrastructure;
+
+/**
+ * Result of storing a file: its content-addressed object key, SHA-256 and size,
+ * and whether identical bytes were already stored (nothing was uploaded then).
+ */
+public class StoredObject {
+
+    private final String objectKey;
+    private final String sha256;
+    private final long size;
+    private final boolean deduplicated;
+
+    public StoredObject(String objectKey, String sha256, long size, boolean deduplicated) {
+        this.objectKey = objectKey;
+        this.sha256 = sha256;
+        this.size = size;
+        this.deduplicated = deduplicated;
+    }
+
+    public String getObjectKey() { return objectKey; }
+
+    public String getSha256() { return sha256; }
+
+    public long getSize() { return size; }
+
+    public boolean isDeduplicated() { return deduplicated; }
+}
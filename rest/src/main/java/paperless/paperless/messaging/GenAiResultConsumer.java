@@ -0,0 +1,45 @@
+package paperless.paperless.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import paperless.paperless.bl.service.DocumentService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class GenAiResultConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(GenAiResultConsumer.class);
+
+    private final DocumentService documentService;
+
+    public GenAiResultConsumer(DocumentService documentService,
+                               @Value("${genai.result.queue.name}") String q) {
+        this.documentService = documentService;
+        log.info("Rabbit listener will consume summaries from queue='{}'", q);
+    }
+
+    // Messages arrive in batches (see RabbitConfig#genAiResultListenerFactory); the whole batch is
+    // acked or rejected together, so a failed update redelivers every summary in it.
+    @RabbitListener(queues = "${genai.result.queue.name}", containerFactory = "genAiResultListenerFactory")
+    public void onMessages(List<GenAiResultMessage> batch) {
+        // a redelivered document may appear twice in one batch; the later summary wins
+        Map<Long, String> summaries = new LinkedHashMap<>();
+        for (GenAiResultMessage msg : batch) {
+            if (msg == null || msg.getDocumentId() == null) {
+                log.warn("Dropping summary without documentId");
+                continue;
+            }
+            summaries.put(msg.getDocumentId(), msg.getSummary());
+        }
+        if (summaries.isEmpty()) return;
+
+        log.info("Received {} summaries ({} documents)", batch.size(), summaries.size());
+        documentService.updateSummaries(summaries);
+    }
+}
@@ -0,0 +1,54 @@
+package paperless.paperless.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+
+import java.util.List;
+
+/**
+ * Last resort of the summary listener's retries: a batch that still fails is parked in the {@code _DLQ} queue
+ * instead of being requeued in a tight loop. The queue is declared on first use. If parking fails as well, the
+ * batch goes back to the result queue, so no summary is dropped.
+ */
+public class GenAiResultParking implements MessageBatchRecoverer {
+
+    private static final Logger log = LoggerFactory.getLogger(GenAiResultParking.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final Queue parkingQueue;
+    private volatile boolean declared;
+
+    public GenAiResultParking(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin, Queue parkingQueue) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.parkingQueue = parkingQueue;
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        String q = parkingQueue.getName();
+        try {
+            if (!declared) {
+                amqpAdmin.declareQueue(parkingQueue);
+                declared = true;
+            }
+            for (Message m : messages) {
+                m.getMessageProperties().setHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE, String.valueOf(
+                        cause.getCause() != null ? cause.getCause().getMessage() : cause.getMessage()));
+                rabbitTemplate.send("", q, m);
+            }
+        } catch (AmqpException e) {
+            throw new ImmediateRequeueAmqpException("Could not park " + messages.size() + " summaries", e);
+        }
+        log.error("Parked {} summaries in queue='{}' after repeated failures: {}", messages.size(), q, cause.toString());
+    }
+}
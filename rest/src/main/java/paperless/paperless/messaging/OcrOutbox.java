@@ -0,0 +1,152 @@
+package paperless.paperless.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import paperless.paperless.dal.entity.OcrOutboxEntity;
+import paperless.paperless.dal.repository.OcrOutboxRepository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for OCR jobs.
+ * <p>
+ * {@link #enqueue} only inserts a row, in the caller's transaction: a rolled back upload never produces a job,
+ * and the upload never waits on RabbitMQ. A relay thread publishes pending rows oldest first in batches of
+ * {@code ocr.outbox.batchSize}, with publisher confirms, and deletes them after the broker confirmed.
+ * Delivery is at-least-once; a crash between confirm and delete publishes the batch again.
+ */
+@Component
+public class OcrOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrOutbox.class);
+
+    private final OcrOutboxRepository outboxRepository;
+    private final OcrProducer ocrProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final long pollMs;
+
+    // released after each commit that added a row, so the relay does not wait for the next poll
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running;
+    private Thread relay;
+
+    public OcrOutbox(OcrOutboxRepository outboxRepository,
+                     OcrProducer ocrProducer,
+                     ObjectMapper objectMapper,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${ocr.outbox.batchSize:100}") int batchSize,
+                     @Value("${ocr.outbox.pollMs:1000}") long pollMs) {
+        this.outboxRepository = outboxRepository;
+        this.ocrProducer = ocrProducer;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.pollMs = pollMs;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        relay = new Thread(this::runLoop, "ocr-outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public void enqueue(OcrJobMessage job) {
+        OcrOutboxEntity row = new OcrOutboxEntity();
+        row.setDocumentId(job.getDocumentId());
+        row.setPayload(toJson(job));
+        row.setCreatedAt(OffsetDateTime.now());
+        outboxRepository.save(row);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { wakeUp.release(); }
+            });
+        } else {
+            wakeUp.release();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                // keep draining while batches come back full
+                if (relayBatch() < batchSize) {
+                    wakeUp.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("OCR outbox relay failed, retrying in {} ms: {}", pollMs, e.toString());
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Publishes and deletes one batch in a single transaction; returns the number of rows handled.
+    int relayBatch() {
+        Integer handled = tx.execute(status -> {
+            List<OcrOutboxEntity> rows = outboxRepository.lockNextBatch(PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) return 0;
+
+            List<OcrJobMessage> jobs = new ArrayList<>(rows.size());
+            for (OcrOutboxEntity row : rows) {
+                try {
+                    jobs.add(objectMapper.readValue(row.getPayload(), OcrJobMessage.class));
+                } catch (JsonProcessingException e) {
+                    // cannot be published ever; dropping it keeps the queue moving
+                    log.error("Dropping unreadable OCR outbox row id={} documentId={}: {}",
+                            row.getId(), row.getDocumentId(), e.getOriginalMessage());
+                }
+            }
+            // throws on nack/timeout -> rollback keeps the rows for the next attempt
+            ocrProducer.sendBatch(jobs);
+            outboxRepository.deleteAllInBatch(rows);
+            return rows.size();
+        });
+        return handled == null ? 0 : handled;
+    }
+
+    private String toJson(OcrJobMessage job) {
+        try {
+            return objectMapper.writeValueAsString(job);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize OCR job for documentId=" + job.getDocumentId(), e);
+        }
+    }
+}
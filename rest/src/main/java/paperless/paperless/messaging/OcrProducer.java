@@ -5,8 +5,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class OcrProducer {
 
@@ -14,15 +17,30 @@ public class OcrProducer {
 
     private final RabbitTemplate rabbitTemplate;
     private final Queue ocrQueue;
+    private final long confirmTimeoutMs;
 
-    public OcrProducer(RabbitTemplate rabbitTemplate, @Qualifier("ocrQueue") Queue ocrQueue) {
+    public OcrProducer(RabbitTemplate rabbitTemplate,
+                       @Qualifier("ocrQueue") Queue ocrQueue,
+                       @Value("${ocr.outbox.confirmTimeoutMs:5000}") long confirmTimeoutMs) {
         this.rabbitTemplate = rabbitTemplate;
         this.ocrQueue = ocrQueue;
+        this.confirmTimeoutMs = confirmTimeoutMs;
     }
 
-    public void send(OcrJobMessage msg) {
+    /**
+     * Publishes all jobs on one channel and waits for the broker to confirm them together.
+     * Throws if any message is nacked or the confirms do not arrive in time; the caller may then resend the batch.
+     */
+    public void sendBatch(List<OcrJobMessage> batch) {
+        if (batch.isEmpty()) return;
         String q = ocrQueue.getName();
-        log.info("Publishing OCR job to queue='{}' file='{}' path='{}'", q, msg.getFilename(), msg.getStoredPath());
-        rabbitTemplate.convertAndSend("", q, msg);
+        rabbitTemplate.invoke(ops -> {
+            for (OcrJobMessage msg : batch) {
+                ops.convertAndSend("", q, msg);
+            }
+            ops.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+        log.info("Published {} OCR job(s) to queue='{}'", batch.size(), q);
     }
-}
\ No newline at end of file
+}
@@ -26,8 +26,8 @@ public class OcrResultConsumer {
             log.warn("Received null OCR result message.");
             return;
         }
-        log.info("Received OCR result for documentId={} textKey='{}'",
-                msg.getDocumentId(), msg.getTextKey());
+        log.info("Received OCR result for documentId={} textKey='{}' (ocrPages={}, extractedPages={})",
+                msg.getDocumentId(), msg.getTextKey(), msg.getOcrPages(), msg.getExtractedPages());
 
         indexingService.handleOcrResult(msg);
     }
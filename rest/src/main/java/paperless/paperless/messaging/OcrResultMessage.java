@@ -8,6 +8,9 @@ public class OcrResultMessage {
     private String storedPath;
     private String textKey;
     private OffsetDateTime processedAt;
+    // null when the text was already stored and OCR was skipped
+    private Integer ocrPages;
+    private Integer extractedPages;
 
     public OcrResultMessage() { }
 
@@ -29,4 +32,10 @@ public class OcrResultMessage {
 
     public OffsetDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(OffsetDateTime processedAt) { this.processedAt = processedAt; }
+
+    public Integer getOcrPages() { return ocrPages; }
+    public void setOcrPages(Integer ocrPages) { this.ocrPages = ocrPages; }
+
+    public Integer getExtractedPages() { return extractedPages; }
+    public void setExtractedPages(Integer extractedPages) { this.extractedPages = extractedPages; }
 }
@@ -1,20 +1,26 @@
 package paperless.paperless.search;
 
-import co.elastic.clients.elasticsearch._types.Result;
+import paperless.paperless.search.dto.BulkIndexResult;
 import paperless.paperless.search.dto.IndexedDocument;
-import paperless.paperless.search.dto.SearchHit;
+import paperless.paperless.search.dto.SearchPage;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface SearchIndexService {
 
-    Result indexDocument(IndexedDocument document) throws IOException;
+    // One _bulk request for all documents; failures are reported per item, not thrown.
+    BulkIndexResult bulkIndex(List<IndexedDocument> documents) throws IOException;
+
+    // Partial updates of the tags field only; content is never re-sent. Missing documents are reported as failed.
+    BulkIndexResult updateTags(Map<Long, List<String>> tagsByDocumentId) throws IOException;
 
     Optional<IndexedDocument> getDocumentById(long id);
 
     boolean deleteDocumentById(long id);
 
-    List<SearchHit> search(String query, List<String> tags, int limit) throws IOException;
+    // cursor is the nextCursor of the previous page, null for the first; an invalid or expired one is an IllegalArgumentException
+    SearchPage search(String query, List<String> tags, int limit, String cursor) throws IOException;
 }
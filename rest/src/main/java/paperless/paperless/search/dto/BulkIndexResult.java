@@ -0,0 +1,19 @@
+package paperless.paperless.search.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-item outcome of a bulk request: ids that were indexed and, for the others, the reason ES gave.
+ */
+public class BulkIndexResult {
+
+    private final List<Long> succeeded = new ArrayList<>();
+    private final Map<Long, String> failed = new LinkedHashMap<>();
+
+    public List<Long> getSucceeded() { return succeeded; }
+
+    public Map<Long, String> getFailed() { return failed; }
+}
@@ -18,6 +18,9 @@ public class IndexedDocument {
 
     private Long id;
     private String filename = "";
+    private String contentType;
+    // boxed: documents indexed before size was stored have none
+    private Long size;
     private String content = "";
 
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
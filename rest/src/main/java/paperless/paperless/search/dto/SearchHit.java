@@ -4,6 +4,8 @@ public class SearchHit {
 
     private Long id;
     private Double score;
+    // hit _source without content; null if the index did not return it
+    private IndexedDocument document;
 
     public SearchHit() { }
 
@@ -12,9 +14,18 @@ public class SearchHit {
         this.score = score;
     }
 
+    public SearchHit(Long id, Double score, IndexedDocument document) {
+        this.id = id;
+        this.score = score;
+        this.document = document;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
     public Double getScore() { return score; }
     public void setScore(Double score) { this.score = score; }
+
+    public IndexedDocument getDocument() { return document; }
+    public void setDocument(IndexedDocument document) { this.document = document; }
 }
@@ -0,0 +1,34 @@
+package paperless.paperless.search.dto;
+
+import java.util.List;
+
+/**
+ * One page of search hits. {@code total} is exact only up to the configured tracking bound; above it
+ * {@code totalExact} is false and {@code total} is a lower bound. {@code nextCursor} is null on the last page.
+ */
+public class SearchPage {
+
+    private final List<SearchHit> hits;
+    private final long total;
+    private final boolean totalExact;
+    private final String nextCursor;
+
+    public SearchPage(List<SearchHit> hits, long total, boolean totalExact, String nextCursor) {
+        this.hits = hits;
+        this.total = total;
+        this.totalExact = totalExact;
+        this.nextCursor = nextCursor;
+    }
+
+    public static SearchPage empty() {
+        return new SearchPage(List.of(), 0, true, null);
+    }
+
+    public List<SearchHit> getHits() { return hits; }
+
+    public long getTotal() { return total; }
+
+    public boolean isTotalExact() { return totalExact; }
+
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,124 @@
+package paperless.paperless.search.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.BulkIndexByScrollFailure;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import paperless.paperless.config.ElasticsearchConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the documents alias pointing at a versioned index with the explicit mapping.
+ * <p>
+ * All reads and writes go through the alias {@link ElasticsearchConfig#DOCUMENTS_INDEX_NAME}. At startup a
+ * missing index is created as {@link ElasticsearchConfig#DOCUMENTS_INDEX_VERSION} with the alias attached. An
+ * index left over from the dynamic-mapping days, a concrete index named like the alias, is reindexed into the
+ * versioned one and then replaced by the alias in one atomic alias update. The explicit mapping still accepts its
+ * epoch-second {@code uploadedAt} values. Finally the live mapping is checked, and a mismatch stops the
+ * application instead of failing every index call later.
+ */
+@Slf4j
+final class DocumentsIndexMigration {
+
+    private static final String INDEX_DEFINITION = "elasticsearch/documents-index.json";
+    private static final String ALIAS = ElasticsearchConfig.DOCUMENTS_INDEX_NAME;
+    private static final String TARGET = ElasticsearchConfig.DOCUMENTS_INDEX_VERSION;
+
+    private DocumentsIndexMigration() { }
+
+    static void ensure(ElasticsearchClient esClient) throws IOException {
+        boolean aliasExists = esClient.indices().existsAlias(a -> a.name(ALIAS)).value();
+        if (!aliasExists) {
+            boolean legacyIndex = esClient.indices().exists(i -> i.index(ALIAS)).value();
+            if (!esClient.indices().exists(i -> i.index(TARGET)).value()) {
+                try (InputStream definition = new ClassPathResource(INDEX_DEFINITION).getInputStream()) {
+                    // the alias is only added once the legacy index (which holds that name) is gone
+                    esClient.indices().create(c -> {
+                        c.index(TARGET).withJson(definition);
+                        if (!legacyIndex) c.aliases(ALIAS, a -> a);
+                        return c;
+                    });
+                }
+                log.info("Created Elasticsearch index '{}' from {}", TARGET, INDEX_DEFINITION);
+            }
+            if (legacyIndex) {
+                reindexLegacy(esClient);
+            } else if (!esClient.indices().existsAlias(a -> a.name(ALIAS)).value()) {
+                esClient.indices().putAlias(a -> a.index(TARGET).name(ALIAS));
+            }
+        }
+
+        Map<String, ?> targets = esClient.indices().getAlias(a -> a.name(ALIAS)).result();
+        if (!targets.containsKey(TARGET)) {
+            throw new IllegalStateException("Elasticsearch alias '" + ALIAS + "' points to " + targets.keySet()
+                    + " instead of '" + TARGET + "'");
+        }
+        TypeMapping live = esClient.indices().getMapping(m -> m.index(TARGET)).get(TARGET).mappings();
+        List<String> problems = mappingProblems(live);
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Elasticsearch index '" + TARGET + "' has an unexpected mapping: "
+                    + String.join("; ", problems) + ". Delete it and restart to rebuild it from '" + ALIAS + "'.");
+        }
+    }
+
+    private static void reindexLegacy(ElasticsearchClient esClient) throws IOException {
+        log.warn("Elasticsearch index '{}' uses the old dynamic mapping; reindexing it into '{}'", ALIAS, TARGET);
+        // runs as a task: a large index takes longer than the client's socket timeout
+        String task = esClient.reindex(r -> r
+                .source(s -> s.index(ALIAS))
+                .dest(d -> d.index(TARGET))
+                .waitForCompletion(false)).task();
+        GetTasksResponse status;
+        do {
+            status = esClient.tasks().get(t -> t.taskId(task).waitForCompletion(true).timeout(to -> to.time("1m")));
+        } while (!status.completed());
+
+        if (status.error() != null) {
+            throw new IllegalStateException("Reindex of '" + ALIAS + "' into '" + TARGET + "' failed: "
+                    + status.error().reason());
+        }
+        List<BulkIndexByScrollFailure> failures = status.response() == null ? List.of()
+                : status.response().to(ReindexResponse.class, esClient._jsonpMapper()).failures();
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Reindex of '" + ALIAS + "' into '" + TARGET + "' failed for "
+                    + failures.size() + " document(s), first: " + failures.get(0).cause().reason());
+        }
+
+        // drop the legacy index and take over its name in one step, so no request sees neither
+        esClient.indices().updateAliases(u -> u
+                .actions(a -> a.removeIndex(r -> r.index(ALIAS)))
+                .actions(a -> a.add(ad -> ad.index(TARGET).alias(ALIAS))));
+        log.info("Reindexed '{}' into '{}' and replaced it by an alias", ALIAS, TARGET);
+    }
+
+    // what search and indexing rely on; an empty list means the mapping is usable
+    static List<String> mappingProblems(TypeMapping mapping) {
+        Map<String, Property> props = mapping == null ? Map.of() : mapping.properties();
+        List<String> problems = new ArrayList<>();
+        expect(props, "id", Property.Kind.Long, problems);
+        expect(props, "tags", Property.Kind.Keyword, problems);
+        expect(props, "contentType", Property.Kind.Keyword, problems);
+        expect(props, "uploadedAt", Property.Kind.Date, problems);
+        expect(props, "size", Property.Kind.Long, problems);
+        expect(props, "content", Property.Kind.Text, problems);
+        return problems;
+    }
+
+    private static void expect(Map<String, Property> props, String field, Property.Kind kind, List<String> problems) {
+        Property p = props.get(field);
+        if (p == null) {
+            problems.add(field + " is not mapped");
+        } else if (p._kind() != kind) {
+            problems.add(field + " is " + p._kind().jsonValue() + ", expected " + kind.jsonValue());
+        }
+    }
+}
@@ -2,55 +2,102 @@ package paperless.paperless.search.impl;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.DeleteResponse;
 import co.elastic.clients.elasticsearch.core.GetResponse;
-import co.elastic.clients.elasticsearch.core.IndexResponse;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.util.ObjectBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import paperless.paperless.config.ElasticsearchConfig;
 import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.BulkIndexResult;
 import paperless.paperless.search.dto.IndexedDocument;
 import paperless.paperless.search.dto.SearchHit;
+import paperless.paperless.search.dto.SearchPage;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Component
 @Slf4j
 public class ElasticsearchService implements SearchIndexService {
 
+    // what a search result needs; content stays in _source (re-index, partial updates) but is never fetched here
+    private static final List<String> RESULT_FIELDS = List.of("filename", "contentType", "size", "uploadedAt", "tags");
+
     private final ElasticsearchClient esClient;
+    private final String pitKeepAlive;
+    private final int trackTotalHitsUpTo;
 
     @Autowired
-    public ElasticsearchService(ElasticsearchClient esClient) throws IOException {
+    public ElasticsearchService(ElasticsearchClient esClient,
+                                @Value("${search.pit.keepAlive:1m}") String pitKeepAlive,
+                                @Value("${search.trackTotalHits:1000}") int trackTotalHitsUpTo) throws IOException {
         this.esClient = esClient;
+        this.pitKeepAlive = pitKeepAlive;
+        this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+
+        DocumentsIndexMigration.ensure(esClient);
+    }
 
-        if (!esClient.indices().exists(i -> i.index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME)).value()) {
-            esClient.indices().create(c -> c.index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME));
-            log.info("Created Elasticsearch index '{}'", ElasticsearchConfig.DOCUMENTS_INDEX_NAME);
+    @Override
+    public BulkIndexResult bulkIndex(List<IndexedDocument> documents) throws IOException {
+        if (documents == null || documents.isEmpty()) return new BulkIndexResult();
+
+        BulkRequest.Builder req = new BulkRequest.Builder();
+        for (IndexedDocument doc : documents) {
+            req.operations(op -> op.index(i -> i
+                    .index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME)
+                    .id(doc.getId().toString())
+                    .document(doc)
+            ));
         }
+        BulkIndexResult result = toResult(esClient.bulk(req.build()));
+        log.info("Bulk indexed {} document(s) ({} failed)", documents.size(), result.getFailed().size());
+        return result;
     }
 
     @Override
-    public Result indexDocument(IndexedDocument document) throws IOException {
-        IndexResponse response = esClient.index(i -> i
+    public BulkIndexResult updateTags(Map<Long, List<String>> tagsByDocumentId) throws IOException {
+        if (tagsByDocumentId == null || tagsByDocumentId.isEmpty()) return new BulkIndexResult();
+
+        BulkRequest.Builder req = new BulkRequest.Builder();
+        tagsByDocumentId.forEach((id, tags) -> req.operations(op -> op.update(u -> u
                 .index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME)
-                .id(document.getId().toString())
-                .document(document)
-        );
-
-        String logMsg = "Indexed document " + document.getId() + ": result=" + response.result() + ", index=" + response.index();
-        if (response.result() != Result.Created && response.result() != Result.Updated) {
-            log.error("Failed to " + logMsg);
-        } else {
-            log.info(logMsg);
+                .id(id.toString())
+                .action(a -> a.doc(Map.of("tags", tags)))
+        )));
+        BulkIndexResult result = toResult(esClient.bulk(req.build()));
+        log.info("Updated tags of {} document(s) ({} failed)", tagsByDocumentId.size(), result.getFailed().size());
+        return result;
+    }
+
+    private static BulkIndexResult toResult(BulkResponse response) {
+        BulkIndexResult result = new BulkIndexResult();
+        for (BulkResponseItem item : response.items()) {
+            Long id = Long.valueOf(item.id());
+            if (item.error() != null) {
+                result.getFailed().put(id, item.status() + " " + item.error().type() + ": " + item.error().reason());
+            } else {
+                result.getSucceeded().add(id);
+            }
         }
-        return response.result();
+        return result;
     }
 
     @Override
@@ -88,54 +135,143 @@ public class ElasticsearchService implements SearchIndexService {
         return result.result() == Result.Deleted;
     }
 
+    /**
+     * One page of hits sorted by (score desc, id asc). The first page is a plain search; only when it has a
+     * next page is a point-in-time opened, and the cursor carries it together with the sort values of the
+     * last hit, so later pages continue with {@code search_after} in that snapshot. That keeps deep pages as
+     * cheap as the first one and stable while documents are indexed, and a single-page search costs one
+     * round-trip. The PIT is closed once the last page has been served; abandoned ones expire after
+     * {@code search.pit.keepAlive}. A cursor only continues the query and tags it was issued for.
+     */
     @Override
-    public List<SearchHit> search(String query, List<String> tags, int limit) throws IOException {
+    public SearchPage search(String query, List<String> tags, int limit, String cursor) throws IOException {
         int size = Math.max(1, Math.min(limit, 100));
-        boolean hasQuery = query != null && !query.isBlank();
-        boolean hasTags = tags != null && !tags.isEmpty();
-        SearchResponse<IndexedDocument> resp = esClient.search(s -> s
-                        .index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME)
-                        .size(size)
-                        .query(q -> {
-                            // 1) no query and no tags -> match_all
-                            if (!hasQuery && !hasTags) {
-                                return q.matchAll(m -> m);
-                            }
-                            // 2) build bool query
-                            return q.bool(b -> {
-                                if (hasQuery) {
-                                    b.must(m -> m.multiMatch(mm -> mm
-                                            .query(query)
-                                            .fields("content", "filename", "tags")
-                                    ));
-                                } else {
-                                    b.must(m -> m.matchAll(ma -> ma));
-                                }
-                                if (hasTags) {
-                                    List<FieldValue> vals = tags.stream()
-                                            .filter(t -> t != null && !t.isBlank())
-                                            .map(FieldValue::of)
-                                            .toList();
-                                    b.filter(f -> f.terms(t -> t
-                                            .field("tags.keyword")
-                                            .terms(v -> v.value(vals))
-                                    ));
-                                }
-                                return b;
-                            });
-                        }),
-                IndexedDocument.class
-        );
+        String searchHash = SearchCursor.searchHash(query, tags);
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        if (after != null && !after.searchHash().equals(searchHash)) {
+            throw new IllegalArgumentException("Cursor belongs to a different search.");
+        }
+        String pitId = after != null ? after.pitId() : null;
+
+        SearchResponse<IndexedDocument> resp;
+        try {
+            resp = esClient.search(s -> {
+                        // one extra hit tells whether a next page exists
+                        s.size(size + 1)
+                                .trackTotalHits(t -> t.count(trackTotalHitsUpTo))
+                                .source(src -> src.filter(f -> f.includes(RESULT_FIELDS)))
+                                .query(q -> query(q, query, tags))
+                                .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
+                                .sort(so -> so.field(f -> f.field("id").order(SortOrder.Asc)));
+                        if (pitId == null) {
+                            s.index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME);
+                            if (after != null) s.searchAfter(FieldValue.of(after.score()), FieldValue.of(after.id()));
+                            return s;
+                        }
+                        // the index comes from the PIT, which sorts on a _shard_doc tiebreaker anyway; ids are
+                        // unique, so the largest tiebreaker continues right after the last hit of any page
+                        s.pit(p -> p.id(pitId).keepAlive(t -> t.time(pitKeepAlive)))
+                                .sort(so -> so.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+                                .searchAfter(FieldValue.of(after.score()), FieldValue.of(after.id()),
+                                        FieldValue.of(Long.MAX_VALUE));
+                        return s;
+                    },
+                    IndexedDocument.class
+            );
+        } catch (ElasticsearchException e) {
+            if (pitId != null && e.status() == 404) {
+                throw new IllegalArgumentException("Search cursor expired; start a new search.");
+            }
+            throw e;
+        }
+
+        List<Hit<IndexedDocument>> page = resp.hits().hits();
+        String nextPitId = resp.pitId() != null ? resp.pitId() : pitId;
+        String nextCursor = null;
+        if (page.size() > size) {
+            page = page.subList(0, size);
+            if (after == null) nextPitId = openPointInTime();
+            List<FieldValue> sort = page.get(size - 1).sort();
+            nextCursor = new SearchCursor(searchHash, nextPitId, number(sort.get(0)).doubleValue(),
+                    number(sort.get(1)).longValue()).encode();
+        } else if (nextPitId != null) {
+            closePointInTime(nextPitId);
+        }
+
         List<SearchHit> hits = new ArrayList<>();
-        for (var h : resp.hits().hits()) {
+        for (var h : page) {
             if (h == null || h.id() == null) continue;
             try {
                 Long id = Long.parseLong(h.id());
                 Double score = h.score() != null ? h.score() : 0.0;
-                hits.add(new SearchHit(id, score));
+                hits.add(new SearchHit(id, score, h.source()));
             } catch (NumberFormatException ignored) {
             }
         }
-        return hits;
+
+        TotalHits total = resp.hits().total();
+        return total == null
+                ? new SearchPage(hits, hits.size(), nextCursor == null, nextCursor)
+                : new SearchPage(hits, total.value(), total.relation() == TotalHitsRelation.Eq, nextCursor);
+    }
+
+    // opened right after the first page, so it misses at most what was indexed in between
+    private String openPointInTime() {
+        try {
+            return esClient.openPointInTime(o -> o
+                    .index(ElasticsearchConfig.DOCUMENTS_INDEX_NAME)
+                    .keepAlive(t -> t.time(pitKeepAlive))).id();
+        } catch (IOException | ElasticsearchException e) {
+            // later pages still work with search_after on the live index, just without a stable snapshot
+            log.warn("Failed to open point-in-time, paging without one: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static ObjectBuilder<Query> query(Query.Builder q, String query, List<String> tags) {
+        boolean hasQuery = query != null && !query.isBlank();
+        boolean hasTags = tags != null && !tags.isEmpty();
+        // 1) no query and no tags -> match_all
+        if (!hasQuery && !hasTags) {
+            return q.matchAll(m -> m);
+        }
+        // 2) build bool query
+        return q.bool(b -> {
+            if (hasQuery) {
+                b.must(m -> m.multiMatch(mm -> mm
+                        .query(query)
+                        .fields("content", "filename", "tags")
+                ));
+            } else {
+                b.must(m -> m.matchAll(ma -> ma));
+            }
+            if (hasTags) {
+                List<FieldValue> vals = tags.stream()
+                        .filter(t -> t != null && !t.isBlank())
+                        .map(FieldValue::of)
+                        .toList();
+                b.filter(f -> f.terms(t -> t
+                        .field("tags")
+                        .terms(v -> v.value(vals))
+                ));
+            }
+            return b;
+        });
+    }
+
+    // sort values come back as long or double depending on how the JSON number was written
+    private static Number number(FieldValue value) {
+        if (value.isDouble()) return value.doubleValue();
+        if (value.isLong()) return value.longValue();
+        return Double.parseDouble(value.stringValue());
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            esClient.closePointInTime(c -> c.id(pitId));
+        } catch (IOException | ElasticsearchException e) {
+            // it expires on its own after the keep-alive
+            log.debug("Failed to close point-in-time: {}", e.toString());
+        }
     }
 }
@@ -0,0 +1,71 @@
+package paperless.paperless.search.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Opaque search cursor: the sort values (score, id) of the last hit, a hash of the search it belongs to
+ * and the point-in-time later pages are served from (null if none could be opened), base64url-encoded.
+ */
+final class SearchCursor {
+
+    private final String searchHash;
+    private final String pitId;
+    private final double score;
+    private final long id;
+
+    SearchCursor(String searchHash, String pitId, double score, long id) {
+        this.searchHash = searchHash;
+        this.pitId = pitId;
+        this.score = score;
+        this.id = id;
+    }
+
+    String searchHash() { return searchHash; }
+
+    String pitId() { return pitId; }
+
+    double score() { return score; }
+
+    long id() { return id; }
+
+    /**
+     * Identifies a search by its query and tags, so a cursor is not replayed against a different one.
+     * Tag order and duplicates do not matter, like in the terms filter.
+     */
+    static String searchHash(String query, List<String> tags) {
+        StringBuilder sb = new StringBuilder(query == null ? "" : query.strip());
+        if (tags != null) {
+            tags.stream().filter(t -> t != null && !t.isBlank()).distinct().sorted()
+                    .forEach(t -> sb.append('\0').append(t));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String encode() {
+        // the PIT id is base64 itself and the hash hex, so '|' can only be a separator
+        String raw = score + "|" + id + "|" + searchHash + "|" + Objects.toString(pitId, "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static SearchCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length != 4 || parts[2].isEmpty()) throw new IllegalArgumentException();
+            return new SearchCursor(parts[2], parts[3].isEmpty() ? null : parts[3],
+                    Double.parseDouble(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
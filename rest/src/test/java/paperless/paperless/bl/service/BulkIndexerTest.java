@@ -0,0 +1,178 @@
+package paperless.paperless.bl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import paperless.paperless.dal.repository.DocumentRepository;
+import paperless.paperless.dal.repository.DocumentTagRepository;
+import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.BulkIndexResult;
+import paperless.paperless.search.dto.IndexedDocument;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BulkIndexerTest {
+
+    private SearchIndexService searchIndexService;
+    private DocumentRepository documentRepository;
+    private DocumentTagRepository documentTagRepository;
+
+    @BeforeEach
+    void setup() {
+        searchIndexService = mock(SearchIndexService.class);
+        documentRepository = mock(DocumentRepository.class);
+        documentTagRepository = mock(DocumentTagRepository.class);
+    }
+
+    private BulkIndexer indexer(int maxActions, long maxBytes) {
+        // flusher thread is not started; tests drive flushPending() directly
+        return new BulkIndexer(searchIndexService, documentRepository, documentTagRepository, maxActions, maxBytes, 1000, 10_000_000);
+    }
+
+    private static IndexedDocument doc(long id, String content) {
+        IndexedDocument d = new IndexedDocument();
+        d.setId(id);
+        d.setFilename(id + ".pdf");
+        d.setContent(content);
+        return d;
+    }
+
+    @Test
+    void flush_marksOnlySucceededItemsAsIndexed() throws Exception {
+        BulkIndexResult result = new BulkIndexResult();
+        result.getSucceeded().addAll(List.of(1L, 3L));
+        result.getFailed().put(2L, "400 mapper_parsing_exception: failed to parse");
+        when(searchIndexService.bulkIndex(anyList())).thenReturn(result);
+
+        BulkIndexer indexer = indexer(500, 5_000_000);
+        indexer.add(doc(1, "a"));
+        indexer.add(doc(2, "b"));
+        indexer.add(doc(3, "c"));
+        indexer.flushPending();
+
+        verify(searchIndexService, times(1)).bulkIndex(anyList());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(documentRepository).markIndexed(ids.capture(), any(OffsetDateTime.class));
+        assertThat(ids.getValue()).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void flush_splitsByMaxActionsAndMaxBytes() throws Exception {
+        List<List<Long>> batches = new ArrayList<>();
+        when(searchIndexService.bulkIndex(anyList())).thenAnswer(inv -> {
+            List<IndexedDocument> docs = inv.getArgument(0);
+            batches.add(docs.stream().map(IndexedDocument::getId).toList());
+            BulkIndexResult r = new BulkIndexResult();
+            docs.forEach(d -> r.getSucceeded().add(d.getId()));
+            return r;
+        });
+
+        BulkIndexer byCount = indexer(2, 5_000_000);
+        for (long i = 1; i <= 5; i++) byCount.add(doc(i, "x"));
+        byCount.flushPending();
+        assertThat(batches).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+        batches.clear();
+        BulkIndexer byBytes = indexer(500, 1000);
+        byBytes.add(doc(6, "y".repeat(900)));
+        byBytes.add(doc(7, "small"));
+        byBytes.add(doc(8, "small"));
+        byBytes.flushPending();
+        assertThat(batches).containsExactly(List.of(6L), List.of(7L, 8L));
+    }
+
+    @Test
+    void flush_requestFailure_marksNothing() throws Exception {
+        when(searchIndexService.bulkIndex(anyList())).thenThrow(new IOException("connection refused"));
+
+        BulkIndexer indexer = indexer(500, 5_000_000);
+        indexer.add(doc(1, "a"));
+        indexer.flushPending();
+
+        verify(documentRepository, never()).markIndexed(any(), any());
+    }
+
+    @Test
+    void flusherThread_sendsPartialBatchAfterInterval() throws Exception {
+        when(searchIndexService.bulkIndex(anyList())).thenReturn(new BulkIndexResult());
+
+        BulkIndexer indexer = new BulkIndexer(searchIndexService, documentRepository, documentTagRepository, 500, 5_000_000, 50, 10_000_000);
+        indexer.start();
+        try {
+            indexer.add(doc(1, "a"));
+            verify(searchIndexService, timeout(2000)).bulkIndex(argThat(l -> l.size() == 1 && l.get(0).getId() == 1L));
+        } finally {
+            indexer.stop();
+        }
+    }
+
+    @Test
+    void flusherThread_retriesFailedRequest_untilEsAccepts() throws Exception {
+        BulkIndexResult ok = new BulkIndexResult();
+        ok.getSucceeded().add(1L);
+        when(searchIndexService.bulkIndex(anyList()))
+                .thenThrow(new IOException("connection refused"))
+                .thenReturn(ok);
+
+        BulkIndexer indexer = new BulkIndexer(searchIndexService, documentRepository, documentTagRepository, 500, 5_000_000, 50, 10_000_000);
+        indexer.start();
+        try {
+            indexer.add(doc(1, "a"));
+            verify(documentRepository, timeout(5000)).markIndexed(argThat(ids -> ids.contains(1L)), any());
+            verify(searchIndexService, times(2)).bulkIndex(anyList());
+        } finally {
+            indexer.stop();
+        }
+    }
+
+    @Test
+    void add_blocksOnceQueuedTextExceedsTheByteBudget_untilABatchIsDone() throws Exception {
+        when(searchIndexService.bulkIndex(anyList())).thenReturn(new BulkIndexResult());
+        // room for one ~1 KB document, not two
+        BulkIndexer indexer = new BulkIndexer(searchIndexService, documentRepository, documentTagRepository, 500, 5_000_000, 1000, 2000);
+        indexer.add(doc(1, "x".repeat(1000)));
+
+        Thread producer = new Thread(() -> indexer.add(doc(2, "y".repeat(1000))));
+        producer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (producer.getState() != Thread.State.WAITING) {
+            assertThat(System.currentTimeMillis()).as("producer did not block").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+
+        indexer.flushPending();
+        producer.join(5000);
+        assertThat(producer.isAlive()).isFalse();
+        indexer.flushPending();
+
+        verify(searchIndexService).bulkIndex(argThat(l -> l.size() == 1 && l.get(0).getId() == 1L));
+        verify(searchIndexService).bulkIndex(argThat(l -> l.size() == 1 && l.get(0).getId() == 2L));
+    }
+
+    @Test
+    void flush_sendsTheTagsCurrentAtSendTime_notThoseAtQueueTime() throws Exception {
+        when(searchIndexService.bulkIndex(anyList())).thenReturn(new BulkIndexResult());
+        IndexedDocument queued = doc(1, "a");
+        queued.setTags(List.of("draft"));
+
+        BulkIndexer indexer = indexer(500, 5_000_000);
+        indexer.add(queued);
+        // edited while the document waited in the queue
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(List.of(1L))).thenReturn(Map.of(1L, List.of("paid")));
+        indexer.flushPending();
+
+        verify(searchIndexService).bulkIndex(argThat(l -> l.get(0).getTags().equals(List.of("paid"))));
+    }
+}
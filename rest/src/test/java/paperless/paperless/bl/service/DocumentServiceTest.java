@@ -14,9 +14,12 @@ import paperless.paperless.bl.model.BlUploadRequest;
 import paperless.paperless.dal.entity.DocumentEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
 import paperless.paperless.infrastructure.FileStorageService;
+import paperless.paperless.infrastructure.StoredObject;
 import paperless.paperless.messaging.OcrJobMessage;
-import paperless.paperless.messaging.OcrProducer;
+import paperless.paperless.messaging.OcrOutbox;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.Optional;
@@ -36,7 +39,7 @@ class DocumentServiceTest {
     private FileStorageService fileStorageService;
 
     @Mock
-    private OcrProducer ocrProducer;
+    private OcrOutbox ocrOutbox;
 
     @Mock
     private Validator validator;
@@ -49,11 +52,11 @@ class DocumentServiceTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        service = new DocumentServiceImpl(documentRepository, fileStorageService, ocrProducer, mapper, validator);
+        service = new DocumentServiceImpl(documentRepository, fileStorageService, ocrOutbox, mapper, validator);
     }
 
     @Test
-    @DisplayName("saveDocument() uploads file to MinIO, persists entity, and sends OCR job")
+    @DisplayName("saveDocument() uploads file to MinIO, persists entity, and queues OCR job in the outbox")
     void saveDocument_success() throws Exception {
         // given
         byte[] fileBytes = "abc".getBytes();
@@ -62,8 +65,8 @@ class DocumentServiceTest {
         when(validator.validate(any(BlUploadRequest.class)))
                 .thenReturn(Collections.emptySet());
 
-        when(fileStorageService.uploadFile(eq("test.pdf"), any(byte[].class)))
-                .thenReturn("1234_test.pdf");
+        when(fileStorageService.uploadFile(eq("test.pdf"), eq("application/pdf"), any(InputStream.class)))
+                .thenReturn(new StoredObject("sha256/abc123", "abc123", 3, false));
 
         when(documentRepository.save(any(DocumentEntity.class)))
                 .thenAnswer(inv -> {
@@ -88,22 +91,28 @@ class DocumentServiceTest {
                 });
 
         // when
-        BlDocument result = service.saveDocument(req, fileBytes);
+        BlDocument result = service.saveDocument(req, new ByteArrayInputStream(fileBytes));
 
         // then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getFilename()).isEqualTo("test.pdf");
 
-        verify(fileStorageService).uploadFile(eq("test.pdf"), any(byte[].class));
+        verify(fileStorageService).uploadFile(eq("test.pdf"), eq("application/pdf"), any(InputStream.class));
         verify(documentRepository).save(any(DocumentEntity.class));
 
         ArgumentCaptor<OcrJobMessage> msgCaptor = ArgumentCaptor.forClass(OcrJobMessage.class);
-        verify(ocrProducer).send(msgCaptor.capture());
+        verify(ocrOutbox).enqueue(msgCaptor.capture());
         OcrJobMessage sentMsg = msgCaptor.getValue();
 
         assertThat(sentMsg.getFilename()).isEqualTo("test.pdf");
-        assertThat(sentMsg.getStoredPath()).isEqualTo("1234_test.pdf");
+        assertThat(sentMsg.getStoredPath()).isEqualTo("sha256/abc123");
+
+        ArgumentCaptor<DocumentEntity> entityCaptor = ArgumentCaptor.forClass(DocumentEntity.class);
+        verify(documentRepository).save(entityCaptor.capture());
+        assertThat(entityCaptor.getValue().getContentHash()).isEqualTo("abc123");
+        // size comes from the bytes actually streamed, not from the client
+        assertThat(entityCaptor.getValue().getSize()).isEqualTo(3L);
     }
 
     @Test
@@ -152,10 +161,20 @@ class DocumentServiceTest {
 
         when(validator.validate(req)).thenReturn(violations);
 
-        assertThatThrownBy(() -> service.saveDocument(req, new byte[]{1}))
+        assertThatThrownBy(() -> service.saveDocument(req, new ByteArrayInputStream(new byte[]{1})))
                 .isInstanceOf(IllegalArgumentException.class);
 
-        verifyNoInteractions(ocrProducer);
+        verifyNoInteractions(ocrOutbox);
         verify(documentRepository, never()).save(any());
     }
+
+    @Test
+    void saveDocument_emptyStream_throws_withoutTouchingStorage() {
+        BlUploadRequest req = new BlUploadRequest("empty.pdf", "application/pdf", 1L);
+        when(validator.validate(any(BlUploadRequest.class))).thenReturn(Collections.emptySet());
+
+        assertThatThrownBy(() -> service.saveDocument(req, new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(fileStorageService, documentRepository, ocrOutbox);
+    }
 }
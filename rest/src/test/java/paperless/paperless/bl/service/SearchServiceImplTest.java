@@ -2,19 +2,24 @@ package paperless.paperless.bl.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import paperless.paperless.bl.model.BlSearchPage;
 import paperless.paperless.dal.entity.DocumentEntity;
-import paperless.paperless.dal.entity.DocumentTagEntity;
-import paperless.paperless.dal.entity.TagEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
 import paperless.paperless.dal.repository.DocumentTagRepository;
 import paperless.paperless.model.SearchDocumentResult;
 import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.IndexedDocument;
 import paperless.paperless.search.dto.SearchHit;
+import paperless.paperless.search.dto.SearchPage;
 
+import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class SearchServiceImplTest {
@@ -34,10 +39,14 @@ class SearchServiceImplTest {
         service = new SearchServiceImpl(searchIndexService, documentRepository, documentTagRepository);
     }
 
+    private static SearchPage page(SearchHit... hits) {
+        return new SearchPage(List.of(hits), hits.length, true, null);
+    }
+
     @Test
     void search_returnsDocsInHitOrder_withTags() throws Exception {
-        when(searchIndexService.search("hello", List.of("invoice"), 20))
-                .thenReturn(List.of(
+        when(searchIndexService.search("hello", List.of("invoice"), 20, null))
+                .thenReturn(page(
                         new SearchHit(2L, 1.1),
                         new SearchHit(1L, 0.9)
                 ));
@@ -58,13 +67,10 @@ class SearchServiceImplTest {
 
         when(documentRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(d1, d2));
 
-        TagEntity t = new TagEntity(); t.setName("invoice");
-        DocumentTagEntity link = new DocumentTagEntity(); link.setTag(t);
-
-        when(documentTagRepository.findByDocument_Id(1L)).thenReturn(List.of());
-        when(documentTagRepository.findByDocument_Id(2L)).thenReturn(List.of(link));
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(List.of(2L, 1L)))
+                .thenReturn(Map.of(2L, List.of("invoice")));
 
-        List<SearchDocumentResult> out = service.search("hello", List.of("invoice"), 20);
+        List<SearchDocumentResult> out = service.search("hello", List.of("invoice"), 20, null).getItems();
 
         assertThat(out).hasSize(2);
         assertThat(out.get(0).getId()).isEqualTo(2L);
@@ -74,5 +80,90 @@ class SearchServiceImplTest {
         assertThat(out.get(1).getId()).isEqualTo(1L);
         assertThat(out.get(1).getTags()).isEmpty();
         assertThat(out.get(1).getScore()).isEqualTo(0.9);
+
+        // tags of all hits come from a single bulk lookup
+        verify(documentTagRepository, times(1)).findTagNamesGroupedByDocumentId(List.of(2L, 1L));
+        verify(documentTagRepository, never()).findByDocument_Id(any());
+    }
+
+    @Test
+    void search_buildsResultsFromIndexSource_withoutTouchingPostgres() throws Exception {
+        IndexedDocument src = new IndexedDocument();
+        src.setId(5L);
+        src.setFilename("c.pdf");
+        src.setContentType("application/pdf");
+        src.setSize(30L);
+        src.setUploadedAt(OffsetDateTime.parse("2026-01-03T00:00:00Z"));
+        src.setTags(List.of("invoice", "paid"));
+
+        when(searchIndexService.search("q", List.of(), 10, null))
+                .thenReturn(page(new SearchHit(5L, 2.5, src)));
+
+        List<SearchDocumentResult> out = service.search("q", List.of(), 10, null).getItems();
+
+        assertThat(out).hasSize(1);
+        assertThat(out.get(0).getFilename()).isEqualTo("c.pdf");
+        assertThat(out.get(0).getSize()).isEqualTo(30L);
+        assertThat(out.get(0).getTags()).containsExactly("invoice", "paid");
+        assertThat(out.get(0).getScore()).isEqualTo(2.5);
+        verifyNoInteractions(documentRepository, documentTagRepository);
+    }
+
+    @Test
+    void search_fallsBackToPostgres_forHitsIndexedWithoutSize() throws Exception {
+        IndexedDocument old = new IndexedDocument();
+        old.setId(6L);
+        old.setFilename("old.pdf");
+
+        when(searchIndexService.search("q", List.of(), 10, null))
+                .thenReturn(page(new SearchHit(6L, 1.0, old)));
+
+        DocumentEntity d = new DocumentEntity();
+        d.setId(6L);
+        d.setFilename("old.pdf");
+        d.setContentType("application/pdf");
+        d.setSize(60L);
+        d.setUploadedAt(OffsetDateTime.parse("2025-12-01T00:00:00Z"));
+        when(documentRepository.findAllById(List.of(6L))).thenReturn(List.of(d));
+
+        List<SearchDocumentResult> out = service.search("q", List.of(), 10, null).getItems();
+
+        assertThat(out).hasSize(1);
+        assertThat(out.get(0).getSize()).isEqualTo(60L);
+        verify(documentRepository).findAllById(List.of(6L));
+    }
+
+    @Test
+    void search_passesCursorThrough_andReportsTotalAndNextCursor() throws Exception {
+        IndexedDocument src = new IndexedDocument();
+        src.setId(7L);
+        src.setFilename("d.pdf");
+        src.setContentType("application/pdf");
+        src.setSize(70L);
+        src.setUploadedAt(OffsetDateTime.parse("2026-01-04T00:00:00Z"));
+
+        when(searchIndexService.search("q", null, 1, "cursor-1"))
+                .thenReturn(new SearchPage(List.of(new SearchHit(7L, 1.0, src)), 1000, false, "cursor-2"));
+
+        BlSearchPage page = service.search("q", null, 1, "cursor-1");
+
+        assertThat(page.getItems()).extracting(SearchDocumentResult::getId).containsExactly(7L);
+        assertThat(page.getTotal()).isEqualTo(1000);
+        assertThat(page.isTotalExact()).isFalse();
+        assertThat(page.getNextCursor()).isEqualTo("cursor-2");
+    }
+
+    @Test
+    void search_rethrowsInvalidCursor_butTurnsIndexFailuresIntoAnEmptyPage() throws Exception {
+        when(searchIndexService.search("q", null, 10, "expired"))
+                .thenThrow(new IllegalArgumentException("Search cursor expired; start a new search."));
+        when(searchIndexService.search("q", null, 10, null)).thenThrow(new IOException("connection refused"));
+
+        assertThatThrownBy(() -> service.search("q", null, 10, "expired"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        BlSearchPage page = service.search("q", null, 10, null);
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
     }
 }
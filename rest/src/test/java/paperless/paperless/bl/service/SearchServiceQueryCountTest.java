@@ -0,0 +1,103 @@
+package paperless.paperless.bl.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import paperless.paperless.dal.entity.DocumentEntity;
+import paperless.paperless.dal.entity.DocumentTagEntity;
+import paperless.paperless.dal.entity.TagEntity;
+import paperless.paperless.model.SearchDocumentResult;
+import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.SearchHit;
+import paperless.paperless.search.dto.SearchPage;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(SearchServiceImpl.class)
+class SearchServiceQueryCountTest {
+
+    @Autowired private SearchServiceImpl searchService;
+    @Autowired private EntityManager em;
+    @Autowired private EntityManagerFactory emf;
+
+    @MockBean private SearchIndexService searchIndexService;
+
+    private final List<SearchHit> hits = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        TagEntity invoice = tag("invoice");
+        TagEntity paid = tag("paid");
+
+        for (int i = 0; i < 50; i++) {
+            DocumentEntity d = new DocumentEntity();
+            d.setFilename("doc-" + i + ".pdf");
+            d.setContentType("application/pdf");
+            d.setSize(100 + i);
+            d.setUploadedAt(OffsetDateTime.parse("2026-01-01T00:00:00Z").plusMinutes(i));
+            em.persist(d);
+
+            link(d, invoice);
+            if (i % 2 == 0) link(d, paid);
+            hits.add(new SearchHit(d.getId(), 50.0 - i));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private TagEntity tag(String name) {
+        TagEntity t = new TagEntity();
+        t.setName(name);
+        t.setCreatedAt(OffsetDateTime.now());
+        em.persist(t);
+        return t;
+    }
+
+    private void link(DocumentEntity d, TagEntity t) {
+        DocumentTagEntity dt = new DocumentTagEntity();
+        dt.setDocument(d);
+        dt.setTag(t);
+        dt.setAssignedAt(OffsetDateTime.now());
+        em.persist(dt);
+    }
+
+    private long statementsFor(int hitCount) throws Exception {
+        when(searchIndexService.search(anyString(), any(), anyInt(), any()))
+                .thenReturn(new SearchPage(hits.subList(0, hitCount), hitCount, true, null));
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<SearchDocumentResult> out = searchService.search("q", List.of(), 100, null).getItems();
+
+        assertThat(out).hasSize(hitCount);
+        assertThat(out.get(0).getTags()).containsExactly("invoice", "paid");
+        em.clear();
+        return stats.getPrepareStatementCount();
+    }
+
+    @Test
+    void search_usesConstantNumberOfStatements_regardlessOfHitCount() throws Exception {
+        long few = statementsFor(2);
+        long many = statementsFor(50);
+
+        // one for the documents, one for all their tags
+        assertThat(few).isEqualTo(2);
+        assertThat(many).isEqualTo(few);
+    }
+}
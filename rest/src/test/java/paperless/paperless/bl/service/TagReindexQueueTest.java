@@ -0,0 +1,144 @@
+package paperless.paperless.bl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import paperless.paperless.dal.repository.DocumentTagRepository;
+import paperless.paperless.search.SearchIndexService;
+import paperless.paperless.search.dto.BulkIndexResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class TagReindexQueueTest {
+
+    private SearchIndexService searchIndexService;
+    private DocumentTagRepository documentTagRepository;
+
+    @BeforeEach
+    void setup() {
+        searchIndexService = mock(SearchIndexService.class);
+        documentTagRepository = mock(DocumentTagRepository.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void repeatedChanges_areCoalesced_intoOnePartialUpdatePerDocument() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any()))
+                .thenReturn(Map.of(1L, List.of("invoice", "paid")));
+        BulkIndexResult ok = new BulkIndexResult();
+        ok.getSucceeded().addAll(List.of(1L, 2L));
+        when(searchIndexService.updateTags(anyMap())).thenReturn(ok);
+
+        // long window: nothing is sent until flush() is called
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 60_000);
+        queue.submit(1L);
+        queue.submit(1L);
+        queue.submit(2L);
+        queue.submit(1L);
+        verifyNoInteractions(searchIndexService);
+
+        queue.flush();
+
+        ArgumentCaptor<Map<Long, List<String>>> tags = ArgumentCaptor.forClass(Map.class);
+        verify(searchIndexService, times(1)).updateTags(tags.capture());
+        // document 2 lost its last tag and must be cleared in the index
+        assertThat(tags.getValue()).containsOnly(
+                Map.entry(1L, List.of("invoice", "paid")),
+                Map.entry(2L, List.of()));
+        verify(searchIndexService, never()).bulkIndex(anyList());
+    }
+
+    @Test
+    void flushesOnItsOwn_afterDebounceWindow() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any())).thenReturn(Map.of());
+        when(searchIndexService.updateTags(anyMap())).thenReturn(new BulkIndexResult());
+
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 20);
+        try {
+            queue.submit(5L);
+            verify(searchIndexService, timeout(2000)).updateTags(Map.of(5L, List.of()));
+        } finally {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void failedRequest_keepsDocumentsPending() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any())).thenReturn(Map.of());
+        when(searchIndexService.updateTags(anyMap()))
+                .thenThrow(new IOException("connection refused"))
+                .thenReturn(new BulkIndexResult());
+
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 60_000);
+        queue.submit(3L);
+        queue.flush();
+        queue.flush();
+
+        verify(searchIndexService, times(2)).updateTags(Map.of(3L, List.of()));
+    }
+
+    @Test
+    void failedRequests_backOffExponentially_andResetOnSuccess() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any())).thenReturn(Map.of());
+        IOException down = new IOException("connection refused");
+        when(searchIndexService.updateTags(anyMap()))
+                .thenThrow(down, down, down)
+                .thenReturn(new BulkIndexResult());
+
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 20_000);
+        try {
+            queue.submit(3L);
+            queue.flush();
+            assertThat(queue.backoffMs()).isEqualTo(20_000);
+            queue.flush();
+            assertThat(queue.backoffMs()).isEqualTo(40_000);
+            queue.flush();
+            assertThat(queue.backoffMs()).isEqualTo(TagReindexQueue.MAX_BACKOFF_MS);
+            queue.flush();
+            assertThat(queue.backoffMs()).isZero();
+            verify(searchIndexService, times(4)).updateTags(Map.of(3L, List.of()));
+        } finally {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void documentMissing_isRetried_untilTheBulkIndexerHasIndexedIt() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any())).thenReturn(Map.of(7L, List.of("paid")));
+        BulkIndexResult missing = new BulkIndexResult();
+        missing.getFailed().put(7L, "404 document_missing_exception: [7]: document missing");
+        BulkIndexResult ok = new BulkIndexResult();
+        ok.getSucceeded().add(7L);
+        when(searchIndexService.updateTags(anyMap())).thenReturn(missing, ok);
+
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 10);
+        try {
+            queue.submit(7L);
+            verify(searchIndexService, timeout(2000).times(2)).updateTags(Map.of(7L, List.of("paid")));
+        } finally {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void otherItemFailures_areNotRetried() throws Exception {
+        when(documentTagRepository.findTagNamesGroupedByDocumentId(any())).thenReturn(Map.of());
+        BulkIndexResult rejected = new BulkIndexResult();
+        rejected.getFailed().put(8L, "400 mapper_parsing_exception: failed to parse");
+        when(searchIndexService.updateTags(anyMap())).thenReturn(rejected);
+
+        TagReindexQueue queue = new TagReindexQueue(searchIndexService, documentTagRepository, 60_000);
+        queue.submit(8L);
+        queue.flush();
+        queue.flush();
+
+        verify(searchIndexService, times(1)).updateTags(anyMap());
+    }
+}
@@ -27,7 +27,7 @@ class TagServiceImplTest {
     private TagRepository tagRepository;
     private DocumentTagRepository documentTagRepository;
     private TagMapper tagMapper;
-    private DocumentIndexingService indexingService;
+    private TagReindexQueue tagReindexQueue;
 
     private TagServiceImpl service;
 
@@ -37,9 +37,9 @@ class TagServiceImplTest {
         tagRepository = mock(TagRepository.class);
         documentTagRepository = mock(DocumentTagRepository.class);
         tagMapper = mock(TagMapper.class);
-        indexingService = mock(DocumentIndexingService.class);
+        tagReindexQueue = mock(TagReindexQueue.class);
 
-        service = new TagServiceImpl(documentRepository, tagRepository, documentTagRepository, tagMapper, indexingService);
+        service = new TagServiceImpl(documentRepository, tagRepository, documentTagRepository, tagMapper, tagReindexQueue);
     }
 
     @Test
@@ -72,7 +72,7 @@ class TagServiceImplTest {
         assertThat(out.getName()).isEqualTo("invoice-2026");
 
         verify(tagRepository).save(any(TagEntity.class));
-        verify(indexingService).reindexDocument(1L);
+        verify(tagReindexQueue).submit(1L);
     }
 
     @Test
@@ -0,0 +1,50 @@
+package paperless.paperless.bl.service;
+
+import org.junit.jupiter.api.Test;
+import paperless.paperless.infrastructure.FileStorageService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ThumbnailCacheTest {
+
+    private final FileStorageService storage = mock(FileStorageService.class);
+
+    @Test
+    void get_loadsFromStorageOnce_thenServesFromMemory() {
+        when(storage.downloadFileIfExists("sha256/a.thumb.jpg")).thenReturn(new byte[]{1, 2, 3});
+        ThumbnailCache cache = new ThumbnailCache(storage, 1024);
+
+        assertThat(cache.get("sha256/a")).containsExactly(1, 2, 3);
+        assertThat(cache.get("sha256/a")).containsExactly(1, 2, 3);
+
+        verify(storage, times(1)).downloadFileIfExists("sha256/a.thumb.jpg");
+    }
+
+    @Test
+    void get_missingThumbnail_isNotCached() {
+        when(storage.downloadFileIfExists("sha256/b.thumb.jpg")).thenReturn(null, new byte[]{9});
+        ThumbnailCache cache = new ThumbnailCache(storage, 1024);
+
+        assertThat(cache.get("sha256/b")).isNull();
+        // the ocrworker has written it in the meantime
+        assertThat(cache.get("sha256/b")).containsExactly(9);
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed_whenOverByteBudget() {
+        when(storage.downloadFileIfExists(anyString())).thenAnswer(inv -> new byte[40]);
+        ThumbnailCache cache = new ThumbnailCache(storage, 100);
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("a"); // b is now least recently used
+        cache.get("c"); // 120 bytes > 100 -> evict b
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.get("a");
+        cache.get("b");
+        verify(storage, times(1)).downloadFileIfExists("a.thumb.jpg");
+        verify(storage, times(2)).downloadFileIfExists("b.thumb.jpg");
+    }
+}
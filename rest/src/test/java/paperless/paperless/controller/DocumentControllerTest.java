@@ -11,18 +11,25 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import paperless.paperless.bl.model.BlDocument;
+import paperless.paperless.bl.model.BlDocumentPage;
 import paperless.paperless.bl.model.BlUploadRequest;
 import paperless.paperless.bl.service.DocumentService;
+import paperless.paperless.bl.service.ThumbnailCache;
 import paperless.paperless.bl.mapper.DocumentMapper;
 import paperless.paperless.model.Document;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.*;
 import org.springframework.http.HttpHeaders;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +46,9 @@ class DocumentControllerTest {
     @MockBean
     private DocumentMapper mapper;
 
+    @MockBean
+    private ThumbnailCache thumbnailCache;
+
     private static BlDocument sampleBl() {
         BlDocument d = new BlDocument();
         d.setId(42L);
@@ -68,7 +78,7 @@ class DocumentControllerTest {
             BlDocument bl = sampleBl();
             Document dto = sampleDto();
 
-            Mockito.when(documentService.saveDocument(any(BlUploadRequest.class), any(byte[].class)))
+            Mockito.when(documentService.saveDocument(any(BlUploadRequest.class), any(InputStream.class)))
                     .thenReturn(bl);
             Mockito.when(mapper.toApi(bl)).thenReturn(dto);
 
@@ -98,7 +108,7 @@ class DocumentControllerTest {
         @Test
         @DisplayName("POST /api/documents with BL validation error -> 400 via @ControllerAdvice")
         void upload_blValidationError() throws Exception {
-            Mockito.when(documentService.saveDocument(any(BlUploadRequest.class), any(byte[].class)))
+            Mockito.when(documentService.saveDocument(any(BlUploadRequest.class), any(InputStream.class)))
                     .thenThrow(new ConstraintViolationException("invalid", Collections.emptySet()));
 
             MockMultipartFile file = new MockMultipartFile(
@@ -138,4 +148,217 @@ class DocumentControllerTest {
                     .andExpect(status().isNotFound());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class ListTests {
+
+        @Test
+        @DisplayName("GET /api/documents -> page as JSON array, next cursor in X-Next-Cursor")
+        void list_withNextPage_setsCursorHeader() throws Exception {
+            BlDocument bl = sampleBl();
+            Mockito.when(documentService.list(eq(1), eq("c1"), eq(List.of("invoice", "tax")),
+                            eq(OffsetDateTime.parse("2024-01-01T00:00:00Z")), isNull()))
+                    .thenReturn(new BlDocumentPage(List.of(bl), "c2"));
+            Mockito.when(mapper.toApiList(List.of(bl))).thenReturn(List.of(sampleDto()));
+
+            mvc.perform(get("/api/documents")
+                            .param("limit", "1")
+                            .param("cursor", "c1")
+                            .param("tag", "invoice", "tax")
+                            .param("from", "2024-01-01T00:00:00Z"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(DocumentController.NEXT_CURSOR_HEADER, "c2"))
+                    .andExpect(jsonPath("$[0].id").value(42));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents (last page) -> no X-Next-Cursor")
+        void list_lastPage_hasNoCursorHeader() throws Exception {
+            Mockito.when(documentService.list(eq(10), isNull(), isNull(), isNull(), isNull()))
+                    .thenReturn(new BlDocumentPage(List.of(), null));
+            Mockito.when(mapper.toApiList(List.of())).thenReturn(List.of());
+
+            mvc.perform(get("/api/documents"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(DocumentController.NEXT_CURSOR_HEADER))
+                    .andExpect(jsonPath("$").isEmpty());
+        }
+
+        @Test
+        @DisplayName("GET /api/documents with a malformed timestamp -> 400 Bad Request")
+        void list_badTimestamp_returns400() throws Exception {
+            mvc.perform(get("/api/documents").param("to", "yesterday"))
+                    .andExpect(status().isBadRequest());
+            Mockito.verify(documentService, Mockito.never()).list(anyInt(), any(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    class ContentTests {
+
+        private final byte[] bytes = "hello world!".getBytes();
+
+        private BlDocument stored() {
+            BlDocument d = sampleBl();
+            d.setObjectKey("sha256/abc");
+            d.setContentHash("abc");
+            Mockito.when(documentService.getById(42L)).thenReturn(d);
+            Mockito.when(documentService.openContent(eq(d), anyLong(), anyLong())).thenAnswer(inv -> {
+                int offset = (int) (long) inv.getArgument(1, Long.class);
+                int length = (int) (long) inv.getArgument(2, Long.class);
+                return new ByteArrayInputStream(bytes, offset, length < 0 ? bytes.length - offset : length);
+            });
+            return d;
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content -> 200 with the whole file, ETag and Accept-Ranges")
+        void content_full() throws Exception {
+            stored();
+
+            MvcResult result = mvc.perform(get("/api/documents/{id}/content", 42))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 12))
+                    .andExpect(content().contentType(MediaType.TEXT_PLAIN))
+                    .andExpect(content().bytes(bytes));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with Range -> 206 with only that range read from storage")
+        void content_range() throws Exception {
+            BlDocument d = stored();
+
+            MvcResult result = mvc.perform(get("/api/documents/{id}/content", 42).header(HttpHeaders.RANGE, "bytes=6-"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 6-11/12"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 6))
+                    .andExpect(content().string("world!"));
+            Mockito.verify(documentService).openContent(d, 6L, 6L);
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with a stale If-Range -> 200 with the whole file")
+        void content_staleIfRange_ignoresRange() throws Exception {
+            stored();
+
+            MvcResult result = mvc.perform(get("/api/documents/{id}/content", 42)
+                            .header(HttpHeaders.RANGE, "bytes=6-")
+                            .header(HttpHeaders.IF_RANGE, "\"other\""))
+                    .andReturn();
+            mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(bytes));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with matching If-None-Match -> 304 without reading storage")
+        void content_notModified() throws Exception {
+            stored();
+
+            mvc.perform(get("/api/documents/{id}/content", 42).header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""));
+            Mockito.verify(documentService, Mockito.never()).openContent(any(), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with a range past the end -> 416")
+        void content_unsatisfiableRange() throws Exception {
+            stored();
+
+            mvc.perform(get("/api/documents/{id}/content", 42).header(HttpHeaders.RANGE, "bytes=50-60"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */12"));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with an empty suffix range -> 416")
+        void content_zeroLengthSuffixRange() throws Exception {
+            stored();
+
+            mvc.perform(get("/api/documents/{id}/content", 42).header(HttpHeaders.RANGE, "bytes=-0"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */12"));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content with an invalid or multi-range Range -> 200 with the whole file")
+        void content_ignoredRange_servesWholeFile() throws Exception {
+            BlDocument d = stored();
+            List<String> ranges = List.of("bytes=abc", "items=0-5", "bytes=6-2", "bytes 0-5", "bytes=0-1,4-5");
+
+            for (String range : ranges) {
+                MvcResult result = mvc.perform(get("/api/documents/{id}/content", 42).header(HttpHeaders.RANGE, range))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+                mvc.perform(asyncDispatch(result))
+                        .andExpect(status().isOk())
+                        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                        .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 12))
+                        .andExpect(content().bytes(bytes));
+            }
+            Mockito.verify(documentService, Mockito.times(ranges.size())).openContent(d, 0L, 12L);
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/content (not found) -> 404")
+        void content_notFound() throws Exception {
+            Mockito.when(documentService.getById(anyLong())).thenReturn(null);
+
+            mvc.perform(get("/api/documents/{id}/content", 999))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    class ThumbnailTests {
+
+        private void stored() {
+            BlDocument d = sampleBl();
+            d.setObjectKey("sha256/abc");
+            d.setContentHash("abc");
+            Mockito.when(documentService.getById(42L)).thenReturn(d);
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/thumbnail -> 200 JPEG from the cache")
+        void thumbnail_found() throws Exception {
+            stored();
+            Mockito.when(thumbnailCache.get("sha256/abc")).thenReturn(new byte[]{(byte) 0xFF, (byte) 0xD8});
+
+            mvc.perform(get("/api/documents/{id}/thumbnail", 42))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"abc-thumb\""))
+                    .andExpect(content().bytes(new byte[]{(byte) 0xFF, (byte) 0xD8}));
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/thumbnail before the ocrworker made one -> 404")
+        void thumbnail_notYet() throws Exception {
+            stored();
+            Mockito.when(thumbnailCache.get("sha256/abc")).thenReturn(null);
+
+            mvc.perform(get("/api/documents/{id}/thumbnail", 42))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("GET /api/documents/{id}/thumbnail with matching If-None-Match -> 304 without a lookup")
+        void thumbnail_notModified() throws Exception {
+            stored();
+
+            mvc.perform(get("/api/documents/{id}/thumbnail", 42).header(HttpHeaders.IF_NONE_MATCH, "\"abc-thumb\""))
+                    .andExpect(status().isNotModified());
+            Mockito.verifyNoInteractions(thumbnailCache);
+        }
+    }
+}
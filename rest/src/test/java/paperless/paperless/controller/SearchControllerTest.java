@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import paperless.paperless.bl.model.BlSearchPage;
 import paperless.paperless.bl.service.SearchService;
 import paperless.paperless.model.SearchDocumentResult;
 
@@ -38,8 +39,9 @@ class SearchControllerTest {
         r.setTags(List.of("invoice"));
         r.setScore(1.0);
 
-        Mockito.when(searchService.search(Mockito.eq("hello"), Mockito.eq(List.of("invoice")), Mockito.eq(20)))
-                .thenReturn(List.of(r));
+        Mockito.when(searchService.search(Mockito.eq("hello"), Mockito.eq(List.of("invoice")), Mockito.eq(20),
+                        Mockito.isNull()))
+                .thenReturn(new BlSearchPage(List.of(r), 1, true, null));
 
         mvc.perform(get("/api/search")
                         .param("query", "hello")
@@ -50,6 +52,30 @@ class SearchControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
                 .andExpect(jsonPath("$[0].filename", is("a.pdf")))
-                .andExpect(jsonPath("$[0].tags[0]", is("invoice")));
+                .andExpect(jsonPath("$[0].tags[0]", is("invoice")))
+                .andExpect(header().string(SearchController.TOTAL_COUNT_HEADER, "1"))
+                .andExpect(header().string(SearchController.TOTAL_RELATION_HEADER, "eq"))
+                .andExpect(header().doesNotExist(DocumentController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void search_withCursor_returnsNextCursor_andBoundedTotal() throws Exception {
+        Mockito.when(searchService.search(Mockito.isNull(), Mockito.isNull(), Mockito.eq(20), Mockito.eq("c1")))
+                .thenReturn(new BlSearchPage(List.of(), 1000, false, "c2"));
+
+        mvc.perform(get("/api/search").param("cursor", "c1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SearchController.TOTAL_COUNT_HEADER, "1000"))
+                .andExpect(header().string(SearchController.TOTAL_RELATION_HEADER, "gte"))
+                .andExpect(header().string(DocumentController.NEXT_CURSOR_HEADER, "c2"));
+    }
+
+    @Test
+    void search_expiredCursor_returns400() throws Exception {
+        Mockito.when(searchService.search(Mockito.any(), Mockito.any(), Mockito.anyInt(), Mockito.eq("old")))
+                .thenThrow(new IllegalArgumentException("Search cursor expired; start a new search."));
+
+        mvc.perform(get("/api/search").param("cursor", "old"))
+                .andExpect(status().isBadRequest());
     }
 }
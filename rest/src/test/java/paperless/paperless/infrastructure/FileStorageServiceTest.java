@@ -0,0 +1,195 @@
+package paperless.paperless.infrastructure;
+
+import io.minio.BucketExistsArgs;
+import io.minio.CopyObjectArgs;
+import io.minio.GetObjectArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import paperless.paperless.config.MinioBucketInitializer;
+import paperless.paperless.config.MinioConfig;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileStorageServiceTest {
+
+    // FileStorageService.PART_SIZE: larger uploads are staged
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private MinioClient minio;
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setup() throws Exception {
+        minio = mock(MinioClient.class);
+        MinioConfig config = new MinioConfig();
+        ReflectionTestUtils.setField(config, "bucketName", "documents");
+        storage = new FileStorageService(minio, config, new MinioBucketInitializer(minio, config));
+
+        when(minio.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        // consume the stream like MinIO would, so hash and size are computed
+        when(minio.putObject(any(PutObjectArgs.class))).thenAnswer(inv -> {
+            PutObjectArgs args = inv.getArgument(0);
+            args.stream().readAllBytes();
+            return null;
+        });
+    }
+
+    private static ErrorResponseException noSuchKey() {
+        return error("NoSuchKey");
+    }
+
+    private static ErrorResponseException error(String code) {
+        return new ErrorResponseException(
+                new ErrorResponse(code, "not found", "documents", "k", "k", "req", "host"), null, null);
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    void uploadFile_smallNewContent_isPutDirectlyUnderItsHashKey() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class))).thenThrow(noSuchKey());
+        byte[] bytes = "hello pdf content".getBytes(StandardCharsets.UTF_8);
+
+        StoredObject stored = storage.uploadFile("a.pdf", "application/pdf", new ByteArrayInputStream(bytes));
+
+        assertThat(stored.isDeduplicated()).isFalse();
+        assertThat(stored.getSha256()).isEqualTo(sha256(bytes));
+        assertThat(stored.getObjectKey()).isEqualTo("sha256/" + stored.getSha256());
+        assertThat(stored.getSize()).isEqualTo(bytes.length);
+
+        ArgumentCaptor<PutObjectArgs> put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minio).putObject(put.capture());
+        assertThat(put.getValue().object()).isEqualTo(stored.getObjectKey());
+        assertThat(put.getValue().objectSize()).isEqualTo(bytes.length);
+        assertThat(put.getValue().contentType()).isEqualTo("application/pdf");
+        // stat + put, nothing staged
+        verify(minio).statObject(any(StatObjectArgs.class));
+        verify(minio, never()).copyObject(any(CopyObjectArgs.class));
+        verify(minio, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void uploadFile_smallDuplicate_costsOnlyTheStat() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class))).thenReturn(mock(StatObjectResponse.class));
+        byte[] bytes = "same invoice".getBytes(StandardCharsets.UTF_8);
+
+        StoredObject stored = storage.uploadFile("invoice (1).pdf", "application/pdf", new ByteArrayInputStream(bytes));
+
+        assertThat(stored.isDeduplicated()).isTrue();
+        assertThat(stored.getObjectKey()).isEqualTo("sha256/" + sha256(bytes));
+        verify(minio).statObject(any(StatObjectArgs.class));
+        verify(minio, never()).putObject(any(PutObjectArgs.class));
+        verify(minio, never()).copyObject(any(CopyObjectArgs.class));
+        verify(minio, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void uploadFile_oneByteMoreThanAPart_streamsToStaging_thenCopiesToHashKey() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class))).thenThrow(noSuchKey());
+        byte[] bytes = new byte[PART_SIZE + 1];
+        bytes[PART_SIZE] = 42;
+
+        StoredObject stored = storage.uploadFile("a.pdf", "application/pdf", new ByteArrayInputStream(bytes));
+
+        assertThat(stored.isDeduplicated()).isFalse();
+        assertThat(stored.getSha256()).isEqualTo(sha256(bytes));
+        assertThat(stored.getObjectKey()).isEqualTo("sha256/" + stored.getSha256());
+        assertThat(stored.getSize()).isEqualTo(bytes.length);
+
+        ArgumentCaptor<PutObjectArgs> put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minio).putObject(put.capture());
+        // unknown length -> multipart upload, never a full in-memory copy
+        assertThat(put.getValue().objectSize()).isEqualTo(-1);
+        assertThat(put.getValue().contentType()).isEqualTo("application/pdf");
+        String stagingKey = put.getValue().object();
+        assertThat(stagingKey).startsWith("uploads/");
+
+        ArgumentCaptor<CopyObjectArgs> copy = ArgumentCaptor.forClass(CopyObjectArgs.class);
+        verify(minio).copyObject(copy.capture());
+        assertThat(copy.getValue().object()).isEqualTo(stored.getObjectKey());
+        assertThat(copy.getValue().source().object()).isEqualTo(stagingKey);
+
+        ArgumentCaptor<RemoveObjectArgs> remove = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minio).removeObject(remove.capture());
+        assertThat(remove.getValue().object()).isEqualTo(stagingKey);
+    }
+
+    @Test
+    void uploadFile_sameLargeContentTwice_yieldsSameKey_andStoresOnce() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class)))
+                .thenThrow(noSuchKey())
+                .thenReturn(mock(StatObjectResponse.class));
+        byte[] bytes = new byte[PART_SIZE + 100];
+
+        StoredObject first = storage.uploadFile("invoice.pdf", "application/pdf", new ByteArrayInputStream(bytes));
+        StoredObject second = storage.uploadFile("invoice (1).pdf", "application/pdf", new ByteArrayInputStream(bytes));
+
+        assertThat(second.getObjectKey()).isEqualTo(first.getObjectKey());
+        assertThat(second.isDeduplicated()).isTrue();
+        assertThat(second.getSize()).isEqualTo(bytes.length);
+        verify(minio, times(1)).copyObject(any(CopyObjectArgs.class));
+        // both staging objects are cleaned up
+        verify(minio, times(2)).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void openStream_asksMinioForTheRangeOnly() throws Exception {
+        storage.openStream("sha256/abc", 100, 50);
+        storage.openStream("sha256/abc", 0, -1);
+
+        ArgumentCaptor<GetObjectArgs> get = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(minio, times(2)).getObject(get.capture());
+        assertThat(get.getAllValues().get(0).offset()).isEqualTo(100);
+        assertThat(get.getAllValues().get(0).length()).isEqualTo(50);
+        assertThat(get.getAllValues().get(1).offset()).isEqualTo(0);
+        assertThat(get.getAllValues().get(1).length()).isNull();
+    }
+
+    @Test
+    void uploadFile_checksBucketOnlyOnce() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class))).thenThrow(noSuchKey());
+
+        storage.uploadFile("a.pdf", "application/pdf", new ByteArrayInputStream("a".getBytes()));
+        storage.uploadFile("b.pdf", "application/pdf", new ByteArrayInputStream("b".getBytes()));
+
+        verify(minio, times(1)).bucketExists(any(BucketExistsArgs.class));
+    }
+
+    @Test
+    void uploadFile_noSuchBucket_makesNextUploadRecreateIt() throws Exception {
+        when(minio.statObject(any(StatObjectArgs.class))).thenThrow(noSuchKey());
+        storage.uploadFile("a.pdf", "application/pdf", new ByteArrayInputStream("a".getBytes()));
+
+        // bucket removed behind our back
+        doThrow(error("NoSuchBucket")).when(minio).putObject(any(PutObjectArgs.class));
+        assertThatThrownBy(() -> storage.uploadFile("b.pdf", "application/pdf", new ByteArrayInputStream("b".getBytes())))
+                .isInstanceOf(RuntimeException.class);
+
+        when(minio.bucketExists(any(BucketExistsArgs.class))).thenReturn(false);
+        doReturn(null).when(minio).putObject(any(PutObjectArgs.class));
+        storage.uploadFile("c.pdf", "application/pdf", new ByteArrayInputStream("c".getBytes()));
+
+        verify(minio, times(2)).bucketExists(any(BucketExistsArgs.class));
+        verify(minio, times(1)).makeBucket(any(MakeBucketArgs.class));
+    }
+}
@@ -10,15 +10,31 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import paperless.paperless.bl.model.BlDocument;
+import paperless.paperless.bl.model.BlDocumentPage;
+import paperless.paperless.bl.service.DocumentService;
 import paperless.paperless.dal.entity.DocumentEntity;
+import paperless.paperless.dal.entity.DocumentTagEntity;
+import paperless.paperless.dal.entity.TagEntity;
 import paperless.paperless.dal.repository.DocumentRepository;
+import paperless.paperless.dal.repository.DocumentTagRepository;
+import paperless.paperless.dal.repository.OcrOutboxRepository;
+import paperless.paperless.dal.repository.TagRepository;
 import paperless.paperless.infrastructure.FileStorageService;
+import paperless.paperless.infrastructure.StoredObject;
 import paperless.paperless.messaging.OcrProducer;
 import paperless.paperless.search.SearchIndexService;
 
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +46,10 @@ class DocumentUploadIntegrationTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private DocumentRepository documentRepository;
+    @Autowired private OcrOutboxRepository ocrOutboxRepository;
+    @Autowired private TagRepository tagRepository;
+    @Autowired private DocumentTagRepository documentTagRepository;
+    @Autowired private DocumentService documentService;
 
     // External dependencies -> mock them so the test is stable
     @MockBean private FileStorageService fileStorageService;
@@ -40,9 +60,9 @@ class DocumentUploadIntegrationTest {
 
     @BeforeEach
     void setup() {
-        when(fileStorageService.uploadFile(anyString(), any(byte[].class)))
-                .thenReturn("test-object-key");
-        doNothing().when(ocrProducer).send(any());
+        when(fileStorageService.uploadFile(anyString(), anyString(), any(InputStream.class)))
+                .thenReturn(new StoredObject("test-object-key", "abc123", 17, false));
+        doNothing().when(ocrProducer).sendBatch(anyList());
     }
 
     @Test
@@ -78,6 +98,95 @@ class DocumentUploadIntegrationTest {
 
         assertThat(saved.getFilename()).isEqualTo("test.pdf");
         assertThat(saved.getObjectKey()).isEqualTo("test-object-key");
+        assertThat(saved.getContentHash()).isEqualTo("abc123");
         assertThat(saved.getUploadedAt()).isNotNull();
+
+        // the job went through the outbox: published by the relay after commit, then removed
+        verify(ocrProducer, timeout(5000)).sendBatch(argThat(jobs ->
+                jobs.size() == 1 && jobs.get(0).getDocumentId().equals(saved.getId())));
+        await(() -> ocrOutboxRepository.count() == 0);
+    }
+
+    @Test
+    void updateSummaries_writesAllRowsInOneBatch_andSkipsUnknownIds() {
+        DocumentEntity a = documentRepository.save(document("a.pdf"));
+        DocumentEntity b = documentRepository.save(document("b.pdf"));
+
+        int updated = documentRepository.updateSummaries(java.util.Map.of(
+                a.getId(), "summary a",
+                b.getId(), "summary b",
+                -1L, "no such document"));
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(documentRepository.findById(a.getId()).orElseThrow().getSummary()).isEqualTo("summary a");
+        assertThat(documentRepository.findById(b.getId()).orElseThrow().getSummary()).isEqualTo("summary b");
+    }
+
+    @Test
+    void list_pagesNewestFirst_byCursor_withTieBreakOnId_andFilters() {
+        // a window of its own so documents saved by other tests don't interfere
+        OffsetDateTime t = OffsetDateTime.parse("2001-02-03T04:05:06.123456Z");
+        DocumentEntity oldest = documentRepository.save(document("oldest.pdf", t.minusDays(1)));
+        DocumentEntity tieLow = documentRepository.save(document("tie-low.pdf", t));
+        DocumentEntity tieHigh = documentRepository.save(document("tie-high.pdf", t));
+        DocumentEntity newest = documentRepository.save(document("newest.pdf", t.plusDays(1)));
+        tag(tieLow, "paging-test");
+        tag(oldest, "paging-test");
+
+        OffsetDateTime from = t.minusDays(2);
+        OffsetDateTime to = t.plusDays(2);
+        BlDocumentPage first = documentService.list(2, null, null, from, to);
+        BlDocumentPage second = documentService.list(2, first.getNextCursor(), null, from, to);
+
+        assertThat(first.getItems()).extracting(BlDocument::getId).containsExactly(newest.getId(), tieHigh.getId());
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getItems()).extracting(BlDocument::getId).containsExactly(tieLow.getId(), oldest.getId());
+        assertThat(second.getNextCursor()).isNull();
+
+        BlDocumentPage tagged = documentService.list(10, null, List.of(" Paging-Test "), from, to);
+        assertThat(tagged.getItems()).extracting(BlDocument::getId).containsExactly(tieLow.getId(), oldest.getId());
+
+        BlDocumentPage window = documentService.list(10, null, null, t, t.plusDays(1));
+        assertThat(window.getItems()).extracting(BlDocument::getId).containsExactly(tieHigh.getId(), tieLow.getId());
+
+        assertThatThrownBy(() -> documentService.list(10, "not-a-cursor", null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void tag(DocumentEntity document, String name) {
+        TagEntity tag = tagRepository.findByName(name).orElseGet(() -> {
+            TagEntity e = new TagEntity();
+            e.setName(name);
+            e.setCreatedAt(OffsetDateTime.now());
+            return tagRepository.save(e);
+        });
+        DocumentTagEntity link = new DocumentTagEntity();
+        link.setDocument(document);
+        link.setTag(tag);
+        link.setAssignedAt(OffsetDateTime.now());
+        documentTagRepository.save(link);
+    }
+
+    private static DocumentEntity document(String filename, OffsetDateTime uploadedAt) {
+        DocumentEntity e = document(filename);
+        e.setUploadedAt(uploadedAt);
+        return e;
+    }
+
+    private static DocumentEntity document(String filename) {
+        DocumentEntity e = new DocumentEntity();
+        e.setFilename(filename);
+        e.setContentType("application/pdf");
+        e.setSize(1L);
+        e.setUploadedAt(java.time.OffsetDateTime.now());
+        return e;
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
     }
-}
\ No newline at end of file
+}
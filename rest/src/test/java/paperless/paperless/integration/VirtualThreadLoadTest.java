@@ -0,0 +1,140 @@
+package paperless.paperless.integration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput and p99 of 1,000 concurrent requests that each block for {@code loadtest.blockMs}
+ * (standing in for a Postgres/MinIO/Elasticsearch round-trip), on Tomcat platform threads vs. virtual threads.
+ * Only the web layer is started so the numbers show the threading model, not the backends.
+ * Run with {@code mvn test -Dtest=VirtualThreadLoadTest -Dloadtest=true} on JDK 21+.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 1000);
+    private static final int ROUNDS = Integer.getInteger("loadtest.rounds", 3);
+    private static final long BLOCK_MS = Long.getLong("loadtest.blockMs", 200);
+
+    @Test
+    void platformVsVirtualThreads_underSlowRequests() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-10s %10s %10s %10s%n", "threads", "req/s", "p50 ms", "p99 ms");
+        System.out.printf("%-10s %10.0f %10d %10d%n", "platform", platform.throughput, platform.p50, platform.p99);
+        System.out.printf("%-10s %10.0f %10d %10d%n", "virtual", virtual.throughput, virtual.p50, virtual.p99);
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(SlowApp.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.main.banner-mode=off",
+                        // room for every connection; only the worker threads differ between the runs
+                        "server.tomcat.max-connections=" + (CONCURRENCY * 2),
+                        "server.tomcat.accept-count=" + CONCURRENCY)
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) ctx).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/slow");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            fire(client, uri, Math.min(CONCURRENCY, 100)); // warm-up
+
+            List<Long> latencies = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                latencies.addAll(fire(client, uri, CONCURRENCY));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new Result(sorted.length / seconds, percentile(sorted, 50), percentile(sorted, 99));
+        }
+    }
+
+    // Sends n requests at once and returns their latencies in ms.
+    private static List<Long> fire(HttpClient client, URI uri, int n) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            long sent = System.nanoTime();
+            HttpRequest req = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(2)).GET().build();
+            futures.add(client.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(resp -> {
+                        assertEquals(200, resp.statusCode());
+                        return (System.nanoTime() - sent) / 1_000_000;
+                    }));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, idx)];
+    }
+
+    private static final class Result {
+        final double throughput;
+        final long p50;
+        final long p99;
+
+        Result(double throughput, long p50, long p99) {
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p99 = p99;
+        }
+    }
+
+    // not a @SpringBootConfiguration, so @SpringBootTest classes in this package keep finding the real application
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class
+    })
+    static class SlowApp {
+
+        @RestController
+        static class SlowController {
+            @GetMapping("/slow")
+            String slow() throws InterruptedException {
+                Thread.sleep(BLOCK_MS);
+                return "ok";
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package paperless.paperless.messaging;
+
+import org.junit.jupiter.api.Test;
+import paperless.paperless.bl.service.DocumentService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class GenAiResultConsumerTest {
+
+    @Test
+    void onMessages_appliesWholeBatchAtOnce_lastSummaryWins() {
+        DocumentService documents = mock(DocumentService.class);
+        GenAiResultConsumer consumer = new GenAiResultConsumer(documents, "GENAI_RESULTS");
+
+        consumer.onMessages(List.of(
+                new GenAiResultMessage(1L, "old"),
+                new GenAiResultMessage(2L, "two"),
+                new GenAiResultMessage(1L, "new")));
+
+        verify(documents, times(1)).updateSummaries(Map.of(1L, "new", 2L, "two"));
+    }
+
+    @Test
+    void onMessages_skipsMessagesWithoutDocumentId() {
+        DocumentService documents = mock(DocumentService.class);
+        GenAiResultConsumer consumer = new GenAiResultConsumer(documents, "GENAI_RESULTS");
+
+        consumer.onMessages(Arrays.asList(null, new GenAiResultMessage(null, "orphan")));
+
+        verify(documents, never()).updateSummaries(anyMap());
+    }
+}
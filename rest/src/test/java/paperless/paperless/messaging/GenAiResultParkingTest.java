@@ -0,0 +1,100 @@
+package paperless.paperless.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.test.util.ReflectionTestUtils;
+import paperless.paperless.config.RabbitConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GenAiResultParkingTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private AmqpAdmin amqpAdmin;
+    private final Queue dlq = new RabbitConfig().genAiResultDlq("GENAI_RESULTS");
+    private GenAiResultParking parking;
+
+    private final List<Message> batch = List.of(message("{\"documentId\":1}"), message("{\"documentId\":2}"));
+
+    @BeforeEach
+    void setup() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        amqpAdmin = mock(AmqpAdmin.class);
+        parking = new GenAiResultParking(rabbitTemplate, amqpAdmin, dlq);
+    }
+
+    private static Message message(String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+    }
+
+    @Test
+    void recover_parksEveryMessageOfTheBatch_withTheFailure() {
+        parking.recover(batch, new IllegalStateException("database down"));
+        parking.recover(batch, new IllegalStateException("database down"));
+
+        assertThat(dlq.getName()).isEqualTo("GENAI_RESULTS_DLQ");
+        verify(amqpAdmin, times(1)).declareQueue(dlq);
+        verify(rabbitTemplate, times(2)).send("", "GENAI_RESULTS_DLQ", batch.get(0));
+        verify(rabbitTemplate, times(2)).send("", "GENAI_RESULTS_DLQ", batch.get(1));
+        assertThat((String) batch.get(0).getMessageProperties().getHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE))
+                .isEqualTo("database down");
+    }
+
+    @Test
+    void recover_brokerUnavailable_requeuesTheBatchInsteadOfDroppingIt() {
+        doThrow(new AmqpConnectException(new java.net.ConnectException("refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        assertThatThrownBy(() -> parking.recover(batch, new IllegalStateException("database down")))
+                .isInstanceOf(ImmediateRequeueAmqpException.class);
+    }
+
+    @Test
+    void listenerFactory_retriesAFailingBatchWithBackoff_thenParksIt_andNeverRequeuesRejected() {
+        SimpleRabbitListenerContainerFactory factory = new RabbitConfig().genAiResultListenerFactory(
+                mock(SimpleRabbitListenerContainerFactoryConfigurer.class), mock(ConnectionFactory.class),
+                parking, 50, 1000, 3, 1, 5);
+
+        assertThat(ReflectionTestUtils.getField(factory, "defaultRequeueRejected")).isEqualTo(false);
+        assertThat(factory.getAdviceChain()).hasSize(1);
+
+        // the advice wraps the container's invokeListener(channel, batch)
+        AtomicInteger calls = new AtomicInteger();
+        BatchInvoker failing = (channel, messages) -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("database down");
+        };
+        ProxyFactory proxy = new ProxyFactory(failing);
+        proxy.addAdvice(factory.getAdviceChain()[0]);
+
+        ((BatchInvoker) proxy.getProxy()).invokeListener(null, batch);
+
+        assertThat(calls).hasValue(3);
+        verify(rabbitTemplate, times(2)).send(eq(""), eq("GENAI_RESULTS_DLQ"), any(Message.class));
+    }
+
+    interface BatchInvoker {
+        void invokeListener(Object channel, List<Message> batch);
+    }
+}
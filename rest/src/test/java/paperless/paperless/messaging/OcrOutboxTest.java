@@ -0,0 +1,97 @@
+package paperless.paperless.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import paperless.paperless.dal.entity.OcrOutboxEntity;
+import paperless.paperless.dal.repository.OcrOutboxRepository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OcrOutboxTest {
+
+    private OcrOutboxRepository outboxRepository;
+    private OcrProducer ocrProducer;
+    private PlatformTransactionManager txManager;
+    private OcrOutbox outbox;
+
+    private final List<OcrOutboxEntity> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        outboxRepository = mock(OcrOutboxRepository.class);
+        ocrProducer = mock(OcrProducer.class);
+        txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        when(outboxRepository.save(any(OcrOutboxEntity.class))).thenAnswer(inv -> {
+            OcrOutboxEntity row = inv.getArgument(0);
+            row.setId((long) rows.size() + 1);
+            rows.add(row);
+            return row;
+        });
+        when(outboxRepository.lockNextBatch(any())).thenAnswer(inv -> List.copyOf(rows));
+
+        ObjectMapper json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // relay thread not started; tests call relayBatch() directly
+        outbox = new OcrOutbox(outboxRepository, ocrProducer, json, txManager, 100, 1000);
+    }
+
+    private static OcrJobMessage job(long id) {
+        return new OcrJobMessage(id, id + ".pdf", "application/pdf", 10, "sha256/" + id,
+                OffsetDateTime.parse("2026-01-01T10:00:00Z"));
+    }
+
+    @Test
+    void enqueue_onlyWritesRow_doesNotPublish() {
+        outbox.enqueue(job(1));
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getDocumentId()).isEqualTo(1L);
+        assertThat(rows.get(0).getPayload()).contains("\"storedPath\":\"sha256/1\"");
+        verifyNoInteractions(ocrProducer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_publishesAllPendingJobsAtOnce_thenDeletesThem() {
+        outbox.enqueue(job(1));
+        outbox.enqueue(job(2));
+        outbox.enqueue(job(3));
+
+        assertThat(outbox.relayBatch()).isEqualTo(3);
+
+        ArgumentCaptor<List<OcrJobMessage>> sent = ArgumentCaptor.forClass(List.class);
+        verify(ocrProducer, times(1)).sendBatch(sent.capture());
+        assertThat(sent.getValue()).extracting(OcrJobMessage::getDocumentId).containsExactly(1L, 2L, 3L);
+        assertThat(sent.getValue().get(0).getUploadedAt()).isEqualTo(OffsetDateTime.parse("2026-01-01T10:00:00Z"));
+        verify(outboxRepository).deleteAllInBatch(rows);
+    }
+
+    @Test
+    void relayBatch_unconfirmedPublish_keepsRows() {
+        outbox.enqueue(job(1));
+        doThrow(new AmqpException("nack")).when(ocrProducer).sendBatch(anyList());
+
+        assertThatThrownBy(() -> outbox.relayBatch()).isInstanceOf(AmqpException.class);
+
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+        verify(txManager).rollback(any());
+    }
+}
@@ -0,0 +1,30 @@
+package paperless.paperless.search;
+
+import co.elastic.clients.elasticsearch._types.mapping.Property;
+import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentsIndexDefinitionTest {
+
+    @Test
+    void indexDefinition_parses_andMapsFieldsExplicitly() throws Exception {
+        CreateIndexRequest req;
+        try (InputStream in = new ClassPathResource("elasticsearch/documents-index.json").getInputStream()) {
+            req = CreateIndexRequest.of(b -> b.index("documents").withJson(in));
+        }
+
+        Map<String, Property> props = req.mappings().properties();
+        assertThat(props.get("tags").isKeyword()).isTrue();
+        assertThat(props.get("contentType").isKeyword()).isTrue();
+        assertThat(props.get("uploadedAt").isDate()).isTrue();
+        assertThat(props.get("size").isLong()).isTrue();
+        assertThat(props.get("content").text().analyzer()).isEqualTo("content_text");
+        assertThat(req.settings().analysis().analyzer()).containsKey("content_text");
+    }
+}
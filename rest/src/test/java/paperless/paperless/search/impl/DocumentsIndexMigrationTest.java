@@ -0,0 +1,101 @@
+package paperless.paperless.search.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
+import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.elasticsearch.tasks.ElasticsearchTasksClient;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class DocumentsIndexMigrationTest {
+
+    private static TypeMapping definitionMapping() throws Exception {
+        try (InputStream in = new ClassPathResource("elasticsearch/documents-index.json").getInputStream()) {
+            return CreateIndexRequest.of(b -> b.index("x").withJson(in)).mappings();
+        }
+    }
+
+    // what dynamic mapping made of the documents before the explicit definition
+    private static TypeMapping legacyMapping() {
+        return TypeMapping.of(m -> m
+                .properties("id", p -> p.long_(l -> l))
+                .properties("tags", p -> p.text(t -> t))
+                .properties("contentType", p -> p.text(t -> t))
+                .properties("uploadedAt", p -> p.float_(f -> f))
+                .properties("size", p -> p.long_(l -> l))
+                .properties("content", p -> p.text(t -> t)));
+    }
+
+    @Test
+    void mappingProblems_noneForTheDefinition_butFlagsDynamicMapping() throws Exception {
+        assertThat(DocumentsIndexMigration.mappingProblems(definitionMapping())).isEmpty();
+
+        assertThat(DocumentsIndexMigration.mappingProblems(legacyMapping()))
+                .contains("tags is text, expected keyword", "uploadedAt is float, expected date");
+    }
+
+    @Test
+    void ensure_reindexesLegacyIndex_andSwapsItForTheAlias() throws Exception {
+        ElasticsearchClient es = mock(ElasticsearchClient.class);
+        ElasticsearchIndicesClient indices = mock(ElasticsearchIndicesClient.class);
+        ElasticsearchTasksClient tasks = mock(ElasticsearchTasksClient.class);
+        when(es.indices()).thenReturn(indices);
+        when(es.tasks()).thenReturn(tasks);
+
+        when(indices.existsAlias(any(Function.class))).thenReturn(new BooleanResponse(false));
+        // "documents" is a concrete index, "documents_v2" does not exist yet
+        when(indices.exists(any(Function.class))).thenReturn(new BooleanResponse(true), new BooleanResponse(false));
+        when(es.reindex(any(Function.class))).thenReturn(ReindexResponse.of(r -> r.task("node:1")));
+        GetTasksResponse running = mock(GetTasksResponse.class);
+        GetTasksResponse done = mock(GetTasksResponse.class);
+        when(done.completed()).thenReturn(true);
+        when(tasks.get(any(Function.class))).thenReturn(running, done);
+        stubLiveIndex(indices, definitionMapping());
+
+        DocumentsIndexMigration.ensure(es);
+
+        verify(indices).create(any(Function.class));
+        verify(tasks, times(2)).get(any(Function.class));
+        verify(indices).updateAliases(any(Function.class));
+        verify(indices, never()).putAlias(any(Function.class));
+    }
+
+    @Test
+    void ensure_failsLoudly_whenTheLiveMappingIsWrong() throws Exception {
+        ElasticsearchClient es = mock(ElasticsearchClient.class);
+        ElasticsearchIndicesClient indices = mock(ElasticsearchIndicesClient.class);
+        when(es.indices()).thenReturn(indices);
+        when(indices.existsAlias(any(Function.class))).thenReturn(new BooleanResponse(true));
+        stubLiveIndex(indices, legacyMapping());
+
+        assertThatThrownBy(() -> DocumentsIndexMigration.ensure(es))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("tags is text");
+        verify(indices, never()).create(any(Function.class));
+    }
+
+    private static void stubLiveIndex(ElasticsearchIndicesClient indices, TypeMapping mapping) throws Exception {
+        when(indices.getAlias(any(Function.class))).thenReturn(GetAliasResponse.of(a -> a
+                .result(Map.of("documents_v2", IndexAliases.of(i -> i.aliases(Map.of()))))));
+        when(indices.getMapping(any(Function.class))).thenReturn(GetMappingResponse.of(m -> m
+                .result(Map.of("documents_v2", IndexMappingRecord.of(r -> r.mappings(mapping))))));
+    }
+}
@@ -0,0 +1,135 @@
+package paperless.paperless.search.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import co.elastic.clients.util.ObjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import paperless.paperless.search.dto.IndexedDocument;
+import paperless.paperless.search.dto.SearchPage;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class ElasticsearchServiceTest {
+
+    private ElasticsearchClient es;
+    private ElasticsearchService service;
+    private final List<SearchRequest> requests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = mock(ElasticsearchClient.class);
+        ElasticsearchIndicesClient indices = mock(ElasticsearchIndicesClient.class);
+        when(es.indices()).thenReturn(indices);
+        when(indices.existsAlias(any(Function.class))).thenReturn(new BooleanResponse(true));
+        TypeMapping mapping;
+        try (InputStream in = new ClassPathResource("elasticsearch/documents-index.json").getInputStream()) {
+            mapping = CreateIndexRequest.of(b -> b.index("x").withJson(in)).mappings();
+        }
+        when(indices.getAlias(any(Function.class))).thenReturn(GetAliasResponse.of(a -> a
+                .result(Map.of("documents_v2", IndexAliases.of(i -> i.aliases(Map.of()))))));
+        when(indices.getMapping(any(Function.class))).thenReturn(GetMappingResponse.of(m -> m
+                .result(Map.of("documents_v2", IndexMappingRecord.of(r -> r.mappings(mapping))))));
+
+        service = new ElasticsearchService(es, "1m", 1000);
+    }
+
+    @Test
+    void search_singlePage_isOneRoundTrip() throws Exception {
+        stubSearch(2);
+
+        SearchPage page = service.search("invoice", List.of(), 10, null);
+
+        assertThat(page.getHits()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(requests.get(0).pit()).isNull();
+        verify(es, never()).openPointInTime(any(Function.class));
+        verify(es, never()).closePointInTime(any(Function.class));
+    }
+
+    @Test
+    void search_opensPointInTimeForTheNextPage_andClosesItAfterTheLast() throws Exception {
+        when(es.openPointInTime(any(Function.class))).thenReturn(pit("pit-1"));
+        stubSearch(3, 1);
+
+        SearchPage first = service.search("invoice", List.of("tax"), 2, null);
+        SearchPage second = service.search("invoice", List.of("tax"), 2, first.getNextCursor());
+
+        assertThat(first.getHits()).hasSize(2);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getHits()).hasSize(1);
+        assertThat(second.getNextCursor()).isNull();
+        verify(es, times(1)).openPointInTime(any(Function.class));
+        verify(es, times(1)).closePointInTime(any(Function.class));
+
+        SearchRequest next = requests.get(1);
+        assertThat(next.pit().id()).isEqualTo("pit-1");
+        assertThat(next.index()).isEmpty();
+        // continues after (score, id) of the second hit of the first page
+        assertThat(next.searchAfter()).extracting(FieldValue::_get)
+                .containsExactly(1.0, 2L, Long.MAX_VALUE);
+    }
+
+    @Test
+    void search_rejectsCursorOfADifferentSearch() throws Exception {
+        when(es.openPointInTime(any(Function.class))).thenReturn(pit("pit-1"));
+        stubSearch(3);
+        String cursor = service.search("invoice", List.of("tax"), 2, null).getNextCursor();
+
+        assertThatThrownBy(() -> service.search("receipt", List.of("tax"), 2, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.search("invoice", List.of(), 2, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(requests).hasSize(1);
+    }
+
+    private static OpenPointInTimeResponse pit(String id) {
+        return OpenPointInTimeResponse.of(o -> o.id(id).shards(s -> s.total(1).successful(1).failed(0)));
+    }
+
+    // each call answers with the given number of hits, ids counting up from 1 across calls
+    private void stubSearch(int... hitCounts) throws Exception {
+        long[] nextId = {1};
+        int[] call = {0};
+        when(es.search(any(Function.class), eq(IndexedDocument.class))).thenAnswer(inv -> {
+            Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>> fn = inv.getArgument(0);
+            requests.add(fn.apply(new SearchRequest.Builder()).build());
+            int count = hitCounts[Math.min(call[0]++, hitCounts.length - 1)];
+            List<Hit<IndexedDocument>> hits = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long id = nextId[0]++;
+                hits.add(Hit.of(h -> h.index("documents_v2").id(String.valueOf(id)).score(1.0)
+                        .sort(FieldValue.of(1.0), FieldValue.of(id))
+                        .source(new IndexedDocument())));
+            }
+            return SearchResponse.<IndexedDocument>of(r -> r.took(1).timedOut(false)
+                    .shards(s -> s.total(1).successful(1).failed(0))
+                    .hits(h -> h.hits(hits).total(t -> t.value(3).relation(TotalHitsRelation.Eq))));
+        });
+    }
+}
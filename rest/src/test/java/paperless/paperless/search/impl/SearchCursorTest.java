@@ -0,0 +1,49 @@
+package paperless.paperless.search.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTest {
+
+    @Test
+    void encodeDecode_roundTrips() {
+        String hash = SearchCursor.searchHash("invoice", List.of("tax"));
+        SearchCursor cursor = SearchCursor.decode(new SearchCursor(hash, "pit==|id", 1.2345678901234567, 42L).encode());
+
+        assertThat(cursor.searchHash()).isEqualTo(hash);
+        assertThat(cursor.pitId()).isEqualTo("pit==|id");
+        assertThat(cursor.score()).isEqualTo(1.2345678901234567);
+        assertThat(cursor.id()).isEqualTo(42L);
+    }
+
+    @Test
+    void encodeDecode_keepsAMissingPointInTime() {
+        String hash = SearchCursor.searchHash(null, null);
+        SearchCursor cursor = SearchCursor.decode(new SearchCursor(hash, null, 0.0, 7L).encode());
+
+        assertThat(cursor.pitId()).isNull();
+        assertThat(cursor.id()).isEqualTo(7L);
+    }
+
+    @Test
+    void decode_rejectsGarbage() {
+        for (String bad : List.of("not base64!", "Zm9v", "MXwyfDM")) {
+            assertThatThrownBy(() -> SearchCursor.decode(bad))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor.");
+        }
+    }
+
+    @Test
+    void searchHash_ignoresTagOrderAndDuplicates_butNotTheQuery() {
+        String hash = SearchCursor.searchHash(" invoice ", List.of("a", "b"));
+
+        assertThat(SearchCursor.searchHash("invoice", List.of("b", "a", "a"))).isEqualTo(hash);
+        assertThat(SearchCursor.searchHash("invoices", List.of("a", "b"))).isNotEqualTo(hash);
+        assertThat(SearchCursor.searchHash("invoice", List.of("a"))).isNotEqualTo(hash);
+    }
+}
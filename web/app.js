@@ -220,17 +220,19 @@ async function addTagToDocument(documentId, rawName) {
 }
 
 async function loadRecent() {
-    recentTable.innerHTML = '<tr><td colspan="5">Loading…</td></tr>';
+    recentTable.innerHTML = '<tr><td colspan="6">Loading…</td></tr>';
     try {
         const res = await fetch(`/api/documents?limit=${encodeURIComponent(limitSel.value)}`);
         if (!res.ok) throw new Error('Failed to load recent');
         const arr = await res.json();
         if (!Array.isArray(arr) || arr.length === 0) {
-            recentTable.innerHTML = '<tr><td colspan="5">No documents yet</td></tr>';
+            recentTable.innerHTML = '<tr><td colspan="6">No documents yet</td></tr>';
             return;
         }
         recentTable.innerHTML = arr.map(d => `
           <tr data-id="${d.id}" style="cursor:pointer">
+            <td><img class="thumb" loading="lazy" alt="" src="/api/documents/${encodeURIComponent(d.id)}/thumbnail"
+                     onerror="this.style.visibility='hidden'"></td>
             <td>${d.id}</td>
             <td>${d.filename}</td>
             <td>${d.contentType || '-'}</td>
@@ -246,7 +248,7 @@ async function loadRecent() {
         });
     } catch (e) {
         console.error(e);
-        recentTable.innerHTML = '<tr><td colspan="5">Failed to load</td></tr>';
+        recentTable.innerHTML = '<tr><td colspan="6">Failed to load</td></tr>';
         showToast('Failed to load recent', false);
     }
 }